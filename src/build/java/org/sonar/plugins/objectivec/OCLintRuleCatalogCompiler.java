@@ -0,0 +1,85 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.List;
+
+import org.apache.commons.lang.CharEncoding;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.rules.Rule;
+
+import com.google.common.io.Closeables;
+
+/**
+ * Writes the {@link OCLintRuleCatalog} of the text catalog produced by
+ * OCLint. Only used by the build, which compiles it apart from the plugin
+ * classes so that it is not packaged with them.
+ */
+public final class OCLintRuleCatalogCompiler {
+
+    private OCLintRuleCatalogCompiler() {
+    }
+
+    /**
+     * Compiles a text catalog, run by the build at the process-classes
+     * phase.
+     *
+     * @param args
+     *            the path of the text catalog and the path of the binary
+     *            catalog to write.
+     */
+    public static void main(final String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException(
+                    "Usage: OCLintRuleCatalogCompiler <rules.txt> <rules.bin>");
+        }
+        final List<Rule> rules;
+        final BufferedReader reader = new BufferedReader(
+                new InputStreamReader(new FileInputStream(args[0]),
+                        CharEncoding.UTF_8));
+        try {
+            rules = new OCLintRuleParser().parse(reader);
+        } finally {
+            Closeables.closeQuietly(reader);
+        }
+
+        final File catalog = new File(args[1]);
+        catalog.getParentFile().mkdirs();
+        final OutputStream output = new BufferedOutputStream(
+                new FileOutputStream(catalog));
+        try {
+            OCLintRuleCatalog.write(rules, output);
+            output.close();
+        } finally {
+            Closeables.closeQuietly(output);
+        }
+        LoggerFactory.getLogger(OCLintRuleCatalogCompiler.class).info(
+                "Compiled {} OCLint rules to {}", rules.size(), catalog);
+    }
+
+}
@@ -23,24 +23,35 @@ import java.io.File;
 import java.util.Collection;
 
 import org.sonar.objectivec.api.ObjectiveCGrammar;
+import org.sonar.objectivec.api.ObjectiveCKeyword;
 import org.sonar.objectivec.api.ObjectiveCMetric;
+import org.sonar.objectivec.api.ObjectiveCPunctuator;
+import org.sonar.objectivec.metrics.ObjectiveCMetricsVisitor;
 import org.sonar.objectivec.parser.ObjectiveCParser;
 import org.sonar.squid.api.SourceCode;
 import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.api.SourceFunction;
 import org.sonar.squid.api.SourceProject;
 import org.sonar.squid.indexer.QueryByType;
 
+import com.sonar.sslr.api.AstNode;
 import com.sonar.sslr.api.CommentAnalyser;
 import com.sonar.sslr.impl.Parser;
 import com.sonar.sslr.squid.AstScanner;
+import com.sonar.sslr.squid.SourceCodeBuilderCallback;
+import com.sonar.sslr.squid.SourceCodeBuilderVisitor;
 import com.sonar.sslr.squid.SquidAstVisitor;
 import com.sonar.sslr.squid.SquidAstVisitorContextImpl;
 import com.sonar.sslr.squid.metrics.CommentsVisitor;
+import com.sonar.sslr.squid.metrics.ComplexityVisitor;
+import com.sonar.sslr.squid.metrics.CounterVisitor;
 import com.sonar.sslr.squid.metrics.LinesOfCodeVisitor;
 import com.sonar.sslr.squid.metrics.LinesVisitor;
 
 public class ObjectiveCAstScanner {
 
+    public static final String PROJECT_KEY = "Objective-C Project";
+
     private ObjectiveCAstScanner() {
     }
 
@@ -61,8 +72,31 @@ public class ObjectiveCAstScanner {
     }
 
     public static AstScanner<ObjectiveCGrammar> create(ObjectiveCConfiguration conf, SquidAstVisitor<ObjectiveCGrammar>... visitors) {
-        final SquidAstVisitorContextImpl<ObjectiveCGrammar> context = new SquidAstVisitorContextImpl<ObjectiveCGrammar>(new SourceProject("Objective-C Project"));
-        final Parser<ObjectiveCGrammar> parser = ObjectiveCParser.create(conf);
+        return create(conf, ObjectiveCParser.create(conf), visitors);
+    }
+
+    /**
+     * Creates a scanner around an existing parser, so that short-lived scanners can share the cost of building the
+     * grammar. The parser must not be used by several threads at once.
+     */
+    public static AstScanner<ObjectiveCGrammar> create(ObjectiveCConfiguration conf, Parser<ObjectiveCGrammar> parser,
+            SquidAstVisitor<ObjectiveCGrammar>... visitors) {
+        return create(conf, parser, true, visitors);
+    }
+
+    /**
+     * Creates a scanner computing the metrics with one squid-bridge visitor per metric, as a reference for the
+     * results and the speed of {@link ObjectiveCMetricsVisitor}.
+     */
+    static AstScanner<ObjectiveCGrammar> createWithSeparateMetricVisitors(ObjectiveCConfiguration conf,
+            SquidAstVisitor<ObjectiveCGrammar>... visitors) {
+        return create(conf, ObjectiveCParser.create(conf), false, visitors);
+    }
+
+    private static AstScanner<ObjectiveCGrammar> create(ObjectiveCConfiguration conf, Parser<ObjectiveCGrammar> parser,
+            boolean fusedMetrics, SquidAstVisitor<ObjectiveCGrammar>... visitors) {
+        final ObjectiveCGrammar grammar = parser.getGrammar();
+        final SquidAstVisitorContextImpl<ObjectiveCGrammar> context = new SquidAstVisitorContextImpl<ObjectiveCGrammar>(new SourceProject(PROJECT_KEY));
 
         AstScanner.Builder<ObjectiveCGrammar> builder = AstScanner.<ObjectiveCGrammar> builder(context).setBaseParser(parser);
 
@@ -91,16 +125,93 @@ public class ObjectiveCAstScanner {
         /* Files */
         builder.setFilesMetric(ObjectiveCMetric.FILES);
 
+        /* Functions */
+        builder.withSquidAstVisitor(new SourceCodeBuilderVisitor<ObjectiveCGrammar>(new SourceCodeBuilderCallback() {
+            public SourceCode createSourceCode(SourceCode parentSourceCode, AstNode astNode) {
+                String fileKey = parentSourceCode.isType(SourceFile.class) ? parentSourceCode.getKey() : parentSourceCode.getParent(SourceFile.class).getKey();
+                SourceFunction function = new SourceFunction(fileKey + ":" + functionName(grammar, astNode) + ":" + astNode.getTokenLine());
+                function.setStartAtLine(astNode.getTokenLine());
+                return function;
+            }
+        }, grammar.functionDefinition, grammar.methodDefinition));
+
         /* Metrics */
-        builder.withSquidAstVisitor(new LinesVisitor<ObjectiveCGrammar>(ObjectiveCMetric.LINES));
-        builder.withSquidAstVisitor(new LinesOfCodeVisitor<ObjectiveCGrammar>(ObjectiveCMetric.LINES_OF_CODE));
-        builder.withSquidAstVisitor(CommentsVisitor.<ObjectiveCGrammar> builder().withCommentMetric(ObjectiveCMetric.COMMENT_LINES)
-                .withBlankCommentMetric(ObjectiveCMetric.COMMENT_BLANK_LINES)
-                .withNoSonar(true)
-                .withIgnoreHeaderComment(conf.getIgnoreHeaderComments())
-                .build());
+        if (fusedMetrics) {
+            builder.withSquidAstVisitor(new ObjectiveCMetricsVisitor(conf.getIgnoreHeaderComments()));
+        } else {
+            builder.withSquidAstVisitor(CounterVisitor.<ObjectiveCGrammar> builder()
+                    .setMetricDef(ObjectiveCMetric.FUNCTIONS)
+                    .subscribeTo(grammar.functionDefinition, grammar.methodDefinition)
+                    .build());
+            builder.withSquidAstVisitor(new LinesVisitor<ObjectiveCGrammar>(ObjectiveCMetric.LINES));
+            builder.withSquidAstVisitor(new LinesOfCodeVisitor<ObjectiveCGrammar>(ObjectiveCMetric.LINES_OF_CODE));
+            builder.withSquidAstVisitor(CommentsVisitor.<ObjectiveCGrammar> builder().withCommentMetric(ObjectiveCMetric.COMMENT_LINES)
+                    .withBlankCommentMetric(ObjectiveCMetric.COMMENT_BLANK_LINES)
+                    .withNoSonar(true)
+                    .withIgnoreHeaderComment(conf.getIgnoreHeaderComments())
+                    .build());
+            builder.withSquidAstVisitor(CounterVisitor.<ObjectiveCGrammar> builder()
+                    .setMetricDef(ObjectiveCMetric.STATEMENTS)
+                    .subscribeTo(
+                            grammar.expressionStatement,
+                            grammar.ifStatement,
+                            grammar.switchStatement,
+                            grammar.whileStatement,
+                            grammar.doStatement,
+                            grammar.forStatement,
+                            grammar.jumpStatement,
+                            grammar.tryStatement,
+                            grammar.throwStatement,
+                            grammar.synchronizedStatement,
+                            grammar.autoreleasepoolStatement)
+                    .build());
+            builder.withSquidAstVisitor(ComplexityVisitor.<ObjectiveCGrammar> builder()
+                    .setMetricDef(ObjectiveCMetric.COMPLEXITY)
+                    .subscribeTo(
+                            grammar.functionDefinition,
+                            grammar.methodDefinition,
+                            grammar.blockExpression,
+                            grammar.ifStatement,
+                            grammar.whileStatement,
+                            grammar.doStatement,
+                            grammar.forStatement,
+                            ObjectiveCKeyword.CASE,
+                            grammar.catchClause,
+                            ObjectiveCPunctuator.AMPAMP,
+                            ObjectiveCPunctuator.BARBAR,
+                            ObjectiveCPunctuator.QUESTION)
+                    .build());
+        }
+
+        /* External visitors (typically Check ones) */
+        for (SquidAstVisitor<ObjectiveCGrammar> visitor : visitors) {
+            builder.withSquidAstVisitor(visitor);
+        }
 
         return builder.build();
     }
 
+    /**
+     * Name of a C function, or selector of a method such as <code>-initWithFrame:style:</code>.
+     */
+    private static String functionName(ObjectiveCGrammar grammar, AstNode astNode) {
+        if (astNode.is(grammar.functionDefinition)) {
+            return astNode.findFirstDirectChild(grammar.identifierName).getTokenValue();
+        }
+        AstNode signature = astNode.findFirstDirectChild(grammar.methodSignature);
+        StringBuilder name = new StringBuilder(signature.getTokenValue());
+        for (AstNode part : signature.findFirstDirectChild(grammar.methodSelector).getChildren()) {
+            if (part.is(grammar.keywordDeclarator)) {
+                AstNode selectorName = part.getChildren().get(0);
+                if (selectorName.is(grammar.identifierName)) {
+                    name.append(selectorName.getTokenValue());
+                }
+                name.append(':');
+            } else {
+                name.append(part.getTokenValue());
+            }
+        }
+        return name.toString();
+    }
+
 }
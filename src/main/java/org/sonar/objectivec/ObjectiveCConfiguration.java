@@ -26,6 +26,7 @@ import org.sonar.squid.api.SquidConfiguration;
 public class ObjectiveCConfiguration extends SquidConfiguration {
 
     private boolean ignoreHeaderComments;
+    private int threads = 1;
 
     public ObjectiveCConfiguration() {
     }
@@ -42,4 +43,12 @@ public class ObjectiveCConfiguration extends SquidConfiguration {
         return ignoreHeaderComments;
     }
 
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
 }
@@ -0,0 +1,267 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.sonar.objectivec.api.ObjectiveCGrammar;
+import org.sonar.objectivec.api.ObjectiveCMetric;
+import org.sonar.objectivec.parser.ObjectiveCParser;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceCodeSearchEngine;
+import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.api.SourceProject;
+import org.sonar.squid.indexer.QueryByType;
+import org.sonar.squid.indexer.SquidIndex;
+
+import com.sonar.sslr.impl.Parser;
+import com.sonar.sslr.squid.AstScanner;
+import com.sonar.sslr.squid.SquidAstVisitor;
+
+/**
+ * Scans files with one {@link AstScanner}, and so one parser and one set of
+ * visitors, per thread. The files of each thread are then merged into a
+ * single project, giving the same tree and measures as a sequential scan.
+ * Alternatively, files can be handed over one by one as soon as they are
+ * scanned, without keeping any of them.
+ */
+public final class ParallelAstScanner {
+
+    /**
+     * Creates the visitors of one thread. Visitors are never shared between
+     * threads.
+     */
+    public interface VisitorsFactory {
+
+        SquidAstVisitor<ObjectiveCGrammar>[] create();
+
+    }
+
+    /**
+     * Receives each source file as soon as it is scanned and decorated. It is
+     * called from the scanning threads.
+     */
+    public interface SourceFileHandler {
+
+        void handle(SourceFile sourceFile);
+
+    }
+
+    private final ObjectiveCConfiguration conf;
+    private final VisitorsFactory visitorsFactory;
+
+    public ParallelAstScanner(ObjectiveCConfiguration conf, VisitorsFactory visitorsFactory) {
+        this.conf = conf;
+        this.visitorsFactory = visitorsFactory;
+    }
+
+    public SourceCodeSearchEngine scanFiles(Collection<File> files) {
+        int threads = Math.min(conf.getThreads(), files.size());
+        if (threads <= 1) {
+            AstScanner<ObjectiveCGrammar> scanner = ObjectiveCAstScanner.create(conf, visitorsFactory.create());
+            scanner.scanFiles(files);
+            return scanner.getIndex();
+        }
+        return merge(scanInParallel(partition(files, threads)));
+    }
+
+    /**
+     * Spreads the files over the threads, largest files first, each one to
+     * the least loaded thread.
+     */
+    static List<List<File>> partition(Collection<File> files, int threads) {
+        List<File> bySize = new ArrayList<File>(files);
+        Collections.sort(bySize, new Comparator<File>() {
+            public int compare(File left, File right) {
+                long difference = right.length() - left.length();
+                return difference == 0 ? left.compareTo(right) : (difference > 0 ? 1 : -1);
+            }
+        });
+        List<List<File>> partitions = new ArrayList<List<File>>();
+        long[] loads = new long[threads];
+        for (int i = 0; i < threads; i++) {
+            partitions.add(new ArrayList<File>());
+        }
+        for (File file : bySize) {
+            int leastLoaded = 0;
+            for (int i = 1; i < threads; i++) {
+                if (loads[i] < loads[leastLoaded]) {
+                    leastLoaded = i;
+                }
+            }
+            partitions.get(leastLoaded).add(file);
+            loads[leastLoaded] += file.length();
+        }
+        return partitions;
+    }
+
+    private List<AstScanner<ObjectiveCGrammar>> scanInParallel(List<List<File>> partitions) {
+        List<Callable<AstScanner<ObjectiveCGrammar>>> tasks = new ArrayList<Callable<AstScanner<ObjectiveCGrammar>>>();
+        for (final List<File> partition : partitions) {
+            tasks.add(new Callable<AstScanner<ObjectiveCGrammar>>() {
+                public AstScanner<ObjectiveCGrammar> call() {
+                    AstScanner<ObjectiveCGrammar> scanner = ObjectiveCAstScanner.create(conf, visitorsFactory.create());
+                    scanner.scanFiles(partition);
+                    return scanner;
+                }
+            });
+        }
+        return runAll(tasks);
+    }
+
+    /**
+     * Scans the files one at a time and hands each of them over as soon as it
+     * is scanned. Nothing is kept once a file is handled, so memory depends on
+     * the largest file rather than on the number of files.
+     */
+    public void scanFiles(Collection<File> files, final SourceFileHandler handler) {
+        int threads = Math.min(conf.getThreads(), files.size());
+        if (threads <= 1) {
+            scanOneByOne(files, handler);
+            return;
+        }
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final List<File> partition : partition(files, threads)) {
+            tasks.add(new Callable<Void>() {
+                public Void call() {
+                    scanOneByOne(partition, handler);
+                    return null;
+                }
+            });
+        }
+        runAll(tasks);
+    }
+
+    /**
+     * A scanner keeps every scanned file in its index, so each file gets its
+     * own scanner. The parser and the visitors are shared by these scanners.
+     */
+    private void scanOneByOne(Collection<File> files, SourceFileHandler handler) {
+        Parser<ObjectiveCGrammar> parser = ObjectiveCParser.create(conf);
+        SquidAstVisitor<ObjectiveCGrammar>[] visitors = visitorsFactory.create();
+        for (File file : files) {
+            AstScanner<ObjectiveCGrammar> scanner = ObjectiveCAstScanner.create(conf, parser, visitors);
+            scanner.scanFiles(Collections.singletonList(file));
+            for (SourceCode sourceFile : scanner.getIndex().search(new QueryByType(SourceFile.class))) {
+                handler.handle((SourceFile) sourceFile);
+            }
+        }
+    }
+
+    private static <T> List<T> runAll(List<Callable<T>> tasks) {
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            List<Future<T>> futures = new ArrayList<Future<T>>();
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            List<T> results = new ArrayList<T>();
+            for (Future<T> future : futures) {
+                results.add(get(future));
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static <T> T get(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while scanning files.", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Unable to scan files.", e.getCause());
+        }
+    }
+
+    /**
+     * Moves the files of every thread under a single project, once all the
+     * threads are done. Each file is detached from the project of its thread
+     * first, so that it belongs to one project only.
+     */
+    private static SourceCodeSearchEngine merge(List<AstScanner<ObjectiveCGrammar>> scanners) {
+        SquidIndex index = new SquidIndex();
+        SourceProject project = new SourceProject(ObjectiveCAstScanner.PROJECT_KEY);
+        index.index(project);
+        for (AstScanner<ObjectiveCGrammar> scanner : scanners) {
+            for (SourceCode file : scanner.getIndex().search(new QueryByType(SourceFile.class))) {
+                detach(file);
+                project.addChild(file);
+                indexTree(index, file);
+            }
+        }
+        aggregate(project);
+        return index;
+    }
+
+    /**
+     * Aggregates the measures of the files into the project the way the
+     * squid-bridge tree decorator does at the end of a sequential scan:
+     * calculated metrics are left to their formula, metrics without an
+     * aggregation formula are not summed and a metric which must not be
+     * aggregated over an existing value keeps it.
+     */
+    private static void aggregate(SourceProject project) {
+        if (!project.hasChildren()) {
+            return;
+        }
+        for (ObjectiveCMetric metric : ObjectiveCMetric.values()) {
+            if (metric.isCalculatedMetric() || !metric.isThereAggregationFormula()
+                    || (!metric.aggregateIfThereIsAlreadyAValue() && project.getDouble(metric) != 0)) {
+                continue;
+            }
+            for (SourceCode file : project.getChildren()) {
+                project.add(metric, file.getDouble(metric));
+            }
+        }
+    }
+
+    private static void detach(SourceCode file) {
+        SourceCode parent = file.getParent();
+        if (parent != null && parent.hasChildren()) {
+            parent.getChildren().remove(file);
+        }
+    }
+
+    private static void indexTree(SquidIndex index, SourceCode sourceCode) {
+        index.index(sourceCode);
+        if (sourceCode.hasChildren()) {
+            for (SourceCode child : sourceCode.getChildren()) {
+                indexTree(index, child);
+            }
+        }
+    }
+
+}
@@ -32,6 +32,68 @@ public class ObjectiveCGrammar extends Grammar {
     public Rule nullLiteral;
     public Rule booleanLiteral;
     public Rule stringLiteral;
+    public Rule preprocessorDirective;
+
+    // A.2 Expressions
+
+    public Rule expression;
+    public Rule expressionPart;
+    public Rule primitiveToken;
+    public Rule parenthesizedExpression;
+    public Rule braceExpression;
+    public Rule messageExpression;
+    public Rule objectLiteral;
+    public Rule protocolExpression;
+    public Rule blockExpression;
+
+    // A.3 Statements
+
+    public Rule statement;
+    public Rule compoundStatement;
+    public Rule expressionStatement;
+    public Rule emptyStatement;
+    public Rule label;
+    public Rule caseLabel;
+    public Rule ifStatement;
+    public Rule switchStatement;
+    public Rule whileStatement;
+    public Rule doStatement;
+    public Rule forStatement;
+    public Rule jumpStatement;
+    public Rule tryStatement;
+    public Rule catchClause;
+    public Rule finallyClause;
+    public Rule throwStatement;
+    public Rule synchronizedStatement;
+    public Rule autoreleasepoolStatement;
+
+    // A.4 Declarations and functions
+
+    public Rule declaration;
+    public Rule functionDefinition;
+    public Rule declarationSpecifier;
+    public Rule enumeratorList;
+
+    // A.5 Classes, categories and protocols
+
+    public Rule forwardDeclaration;
+    public Rule classInterface;
+    public Rule classImplementation;
+    public Rule protocolDeclaration;
+    public Rule protocolReferenceList;
+    public Rule instanceVariables;
+    public Rule interfaceDeclaration;
+    public Rule implementationDefinition;
+    public Rule propertyDeclaration;
+    public Rule propertyImplementation;
+    public Rule methodDeclaration;
+    public Rule methodDefinition;
+    public Rule methodSignature;
+    public Rule methodType;
+    public Rule methodSelector;
+    public Rule keywordDeclarator;
+
+    // A.6 Program
 
     public Rule program;
 
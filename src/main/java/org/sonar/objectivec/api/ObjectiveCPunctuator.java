@@ -87,6 +87,9 @@ public enum ObjectiveCPunctuator implements TokenType {
     SEMICOLON(";"),
     COMMA(","),
 
+    DOT("."),
+    AT("@"), // prefix of Objective-C literals such as @YES, @[] or @{}
+
     MINUSLT("->"),
     MINUSLTSTAR("->*"),
     DOTSTAR(".*");
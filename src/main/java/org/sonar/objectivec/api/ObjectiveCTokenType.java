@@ -24,7 +24,10 @@ import com.sonar.sslr.api.TokenType;
 
 public enum ObjectiveCTokenType implements TokenType {
 
-    NUMERIC_LITERAL;
+    NUMERIC_LITERAL,
+    STRING_LITERAL, // including @"..." Objective-C string objects
+    CHARACTER_LITERAL,
+    PREPROCESSOR; // a whole directive line, continuation lines included
 
     public String getName() {
         return name();
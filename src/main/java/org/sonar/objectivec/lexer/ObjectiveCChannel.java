@@ -0,0 +1,284 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec.lexer;
+
+import static com.sonar.sslr.api.GenericTokenType.COMMENT;
+import static com.sonar.sslr.api.GenericTokenType.IDENTIFIER;
+import static com.sonar.sslr.api.GenericTokenType.UNKNOWN_CHAR;
+
+import org.sonar.channel.Channel;
+import org.sonar.channel.CodeReader;
+import org.sonar.objectivec.api.ObjectiveCKeyword;
+import org.sonar.objectivec.api.ObjectiveCPunctuator;
+import org.sonar.objectivec.api.ObjectiveCTokenType;
+
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
+
+/**
+ * Hand-written channel walking the source buffer once, character by
+ * character. Comments are added as trivia, all other tokens are classified
+ * as keywords, punctuators, identifiers, literals or preprocessor lines.
+ * Keywords and punctuators are looked up in tries built from
+ * {@link ObjectiveCKeyword} and {@link ObjectiveCPunctuator}.
+ */
+public class ObjectiveCChannel extends Channel<Lexer> {
+
+    private static final int EOF = -1;
+
+    private static final TokenTypeTrie KEYWORDS = new TokenTypeTrie(ObjectiveCKeyword.values());
+    private static final TokenTypeTrie PUNCTUATORS = new TokenTypeTrie(ObjectiveCPunctuator.values());
+
+    private final StringBuilder buffer = new StringBuilder();
+
+    @Override
+    public boolean consume(CodeReader code, Lexer lexer) {
+        boolean atLineStart = true;
+        int c = code.peek();
+        while (c != EOF) {
+            if (isWhitespace(c)) {
+                atLineStart |= c == '\n' || c == '\r';
+                code.pop();
+            } else if (c == '/' && code.charAt(1) == '/') {
+                consumeInlineComment(code, lexer);
+            } else if (c == '/' && code.charAt(1) == '*' && blockCommentLength(code) > 0) {
+                consumeBlockComment(code, lexer);
+            } else {
+                if (c == '#' && atLineStart) {
+                    consumePreprocessor(code, lexer);
+                } else {
+                    consumeToken(code, lexer, c);
+                }
+                atLineStart = false;
+            }
+            c = code.peek();
+        }
+        return true;
+    }
+
+    private void consumeInlineComment(CodeReader code, Lexer lexer) {
+        int line = code.getLinePosition();
+        int column = code.getColumnPosition();
+        int c = code.peek();
+        while (c != EOF && c != '\n' && c != '\r') {
+            buffer.append((char) code.pop());
+            c = code.peek();
+        }
+        addComment(lexer, line, column);
+    }
+
+    /**
+     * @return the length of the block comment starting at the current
+     *         position, or 0 when it is not terminated.
+     */
+    private static int blockCommentLength(CodeReader code) {
+        int i = 2;
+        char c = code.charAt(i);
+        while (c != (char) EOF) {
+            if (c == '*' && code.charAt(i + 1) == '/') {
+                return i + 2;
+            }
+            c = code.charAt(++i);
+        }
+        return 0;
+    }
+
+    private void consumeBlockComment(CodeReader code, Lexer lexer) {
+        int line = code.getLinePosition();
+        int column = code.getColumnPosition();
+        popInBuffer(code, blockCommentLength(code));
+        addComment(lexer, line, column);
+    }
+
+    /**
+     * A directive spans up to the end of the line, including escaped line
+     * breaks, and stops before any trailing comment.
+     */
+    private void consumePreprocessor(CodeReader code, Lexer lexer) {
+        int line = code.getLinePosition();
+        int column = code.getColumnPosition();
+        int c = code.peek();
+        while (c != EOF && c != '\n' && c != '\r' && !isCommentStart(code)) {
+            if (c == '\\' && (code.charAt(1) == '\n' || code.charAt(1) == '\r')) {
+                popInBuffer(code, code.charAt(1) == '\r' && code.charAt(2) == '\n' ? 3 : 2);
+            } else {
+                buffer.append((char) code.pop());
+            }
+            c = code.peek();
+        }
+        int length = buffer.length();
+        while (length > 0 && isWhitespace(buffer.charAt(length - 1))) {
+            length--;
+        }
+        buffer.setLength(length);
+        addToken(ObjectiveCTokenType.PREPROCESSOR, lexer, line, column);
+    }
+
+    private void consumeToken(CodeReader code, Lexer lexer, int c) {
+        int line = code.getLinePosition();
+        int column = code.getColumnPosition();
+        TokenType type;
+        if (isIdentifierStart(c)) {
+            popInBuffer(code, identifierLength(code, 0));
+            TokenType keyword = KEYWORDS.match(buffer, 0, buffer.length());
+            type = keyword == null ? IDENTIFIER : keyword;
+        } else if (c == '@' && code.charAt(1) == '"') {
+            buffer.append((char) code.pop());
+            popQuoted(code, '"');
+            type = ObjectiveCTokenType.STRING_LITERAL;
+        } else if (c == '@' && directive(code) != null) {
+            type = directive(code);
+            popInBuffer(code, type.getValue().length());
+        } else if (c == '"') {
+            popQuoted(code, '"');
+            type = ObjectiveCTokenType.STRING_LITERAL;
+        } else if (c == '\'') {
+            popQuoted(code, '\'');
+            type = ObjectiveCTokenType.CHARACTER_LITERAL;
+        } else if (isDigit(c) || (c == '.' && isDigit(code.charAt(1)))) {
+            popNumber(code);
+            type = ObjectiveCTokenType.NUMERIC_LITERAL;
+        } else {
+            TokenType punctuator = PUNCTUATORS.longestMatch(code, 0);
+            if (punctuator == null) {
+                buffer.append((char) code.pop());
+                type = UNKNOWN_CHAR;
+            } else {
+                popInBuffer(code, punctuator.getValue().length());
+                type = punctuator;
+            }
+        }
+        addToken(type, lexer, line, column);
+    }
+
+    /**
+     * @return the compiler directive keyword, such as <code>@interface</code>,
+     *         starting at the current position, or null.
+     */
+    private static TokenType directive(CodeReader code) {
+        return isIdentifierStart(code.charAt(1)) ? KEYWORDS.match(code, 0, identifierLength(code, 1)) : null;
+    }
+
+    /**
+     * @return the index just past the identifier starting at the given offset
+     *         from the current position.
+     */
+    private static int identifierLength(CodeReader code, int offset) {
+        int i = offset + 1;
+        while (isIdentifierPart(code.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * Pops a string or character literal, up to the closing quote or to the
+     * end of the line when it is not terminated.
+     */
+    private void popQuoted(CodeReader code, char quote) {
+        buffer.append((char) code.pop());
+        int c = code.peek();
+        while (c != EOF && c != '\n' && c != '\r') {
+            buffer.append((char) code.pop());
+            if (c == quote) {
+                return;
+            } else if (c == '\\' && code.peek() != EOF) {
+                buffer.append((char) code.pop());
+            }
+            c = code.peek();
+        }
+    }
+
+    /**
+     * Pops decimal, octal, hexadecimal and floating point constants along
+     * with their suffixes and signed exponents.
+     */
+    private void popNumber(CodeReader code) {
+        boolean hexadecimal = code.peek() == '0' && (code.charAt(1) == 'x' || code.charAt(1) == 'X');
+        int c = code.peek();
+        while (isIdentifierPart(c) || c == '.') {
+            buffer.append((char) code.pop());
+            c = code.peek();
+            if ((c == '+' || c == '-') && isExponent(buffer.charAt(buffer.length() - 1), hexadecimal)) {
+                buffer.append((char) code.pop());
+                c = code.peek();
+            }
+        }
+    }
+
+    private static boolean isExponent(char c, boolean hexadecimal) {
+        return hexadecimal ? c == 'p' || c == 'P' : c == 'e' || c == 'E';
+    }
+
+    private void popInBuffer(CodeReader code, int length) {
+        for (int i = 0; i < length; i++) {
+            buffer.append((char) code.pop());
+        }
+    }
+
+    private void addComment(Lexer lexer, int line, int column) {
+        lexer.addTrivia(Trivia.createComment(createToken(COMMENT, lexer, line, column)));
+    }
+
+    private void addToken(TokenType type, Lexer lexer, int line, int column) {
+        lexer.addToken(createToken(type, lexer, line, column));
+    }
+
+    private Token createToken(TokenType type, Lexer lexer, int line, int column) {
+        String value = buffer.toString();
+        buffer.setLength(0);
+        return Token.builder()
+                .setType(type)
+                .setValueAndOriginalValue(value)
+                .setURI(lexer.getURI())
+                .setLine(line)
+                .setColumn(column)
+                .build();
+    }
+
+    private static boolean isCommentStart(CodeReader code) {
+        return code.peek() == '/' && (code.charAt(1) == '/' || code.charAt(1) == '*');
+    }
+
+    /**
+     * Same set of characters as the regular expression class <code>\s</code>.
+     */
+    static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f' || c == 0x0B;
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierStart(int c) {
+        if (c < 0x80) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$';
+        }
+        return c != 0xFFFF && Character.isLetter(c);
+    }
+
+    private static boolean isIdentifierPart(int c) {
+        return isIdentifierStart(c) || isDigit(c);
+    }
+
+}
@@ -23,8 +23,13 @@ import static com.sonar.sslr.api.GenericTokenType.LITERAL;
 import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.commentRegexp;
 import static com.sonar.sslr.impl.channel.RegexpChannelBuilder.regexp;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
 import org.sonar.objectivec.ObjectiveCConfiguration;
 
+import com.sonar.sslr.api.Token;
 import com.sonar.sslr.impl.Lexer;
 import com.sonar.sslr.impl.channel.BlackHoleChannel;
 
@@ -38,6 +43,30 @@ public class ObjectiveCLexer {
     }
 
     public static Lexer create(ObjectiveCConfiguration conf) {
+        return Lexer.builder()
+                .withCharset(conf.getCharset())
+
+                .withFailIfNoChannelToConsumeOneCharacter(false)
+
+                // Comments and all other tokens in a single pass
+                .withChannel(new ObjectiveCChannel())
+
+                .build();
+    }
+
+    /**
+     * Lexes a file read by the {@link SourceLoader} rather than by the reader
+     * of {@link Lexer#lex(File)}.
+     */
+    public static List<Token> lex(Lexer lexer, SourceLoader loader, File file) throws IOException {
+        return lexer.lex(loader.loadString(file));
+    }
+
+    /**
+     * Former regular expression based lexer, only kept as a reference for
+     * benchmarks.
+     */
+    static Lexer createRegexpLexer(ObjectiveCConfiguration conf) {
         return Lexer.builder()
                 .withCharset(conf.getCharset())
 
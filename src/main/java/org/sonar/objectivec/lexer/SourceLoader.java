@@ -0,0 +1,183 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec.lexer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+
+import org.sonar.objectivec.ObjectiveCConfiguration;
+
+import com.google.common.io.Closeables;
+
+/**
+ * Reads source files into a {@link CharSequence}. Files above a threshold
+ * are memory-mapped rather than copied into the heap, and sources made of
+ * ASCII characters only are widened byte per byte instead of going through
+ * a charset decoder. Any other source is decoded with the configured charset,
+ * malformed input being replaced as {@link java.io.InputStreamReader} does.
+ * SSLR only lexes Strings, for which {@link #loadString(File)} decodes the
+ * file in a single copy.
+ */
+public class SourceLoader {
+
+    public static final long DEFAULT_MAPPING_THRESHOLD = 1024L * 1024L;
+
+    private static final int ASCII_LIMIT = 0x80;
+
+    private final Charset charset;
+    private final long mappingThreshold;
+    private final boolean asciiCompatible;
+
+    public SourceLoader(ObjectiveCConfiguration conf) {
+        this(conf.getCharset(), DEFAULT_MAPPING_THRESHOLD);
+    }
+
+    /**
+     * @param mappingThreshold size in bytes from which files are
+     *            memory-mapped, 0 or less maps every file.
+     */
+    public SourceLoader(Charset charset, long mappingThreshold) {
+        this.charset = charset;
+        this.mappingThreshold = mappingThreshold;
+        this.asciiCompatible = isAsciiCompatible(charset);
+    }
+
+    public CharSequence load(File file) throws IOException {
+        FileInputStream input = new FileInputStream(file);
+        try {
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File '" + file + "' is too large to be analysed.");
+            }
+            ByteBuffer bytes;
+            if (size >= mappingThreshold) {
+                bytes = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            } else {
+                bytes = read(channel, (int) size);
+            }
+            return decode(bytes);
+        } finally {
+            Closeables.closeQuietly(input);
+        }
+    }
+
+    /**
+     * Same as {@link #load(File)}, for SSLR entry points taking a String. The
+     * String has to live in the heap anyway, so the file is never mapped: its
+     * bytes are read into an array and decoded by the String itself, malformed
+     * input being replaced, without any intermediate copy.
+     */
+    public String loadString(File file) throws IOException {
+        FileInputStream input = new FileInputStream(file);
+        try {
+            FileChannel channel = input.getChannel();
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("File '" + file + "' is too large to be analysed.");
+            }
+            ByteBuffer bytes = read(channel, (int) size);
+            return new String(bytes.array(), 0, bytes.limit(), charset);
+        } finally {
+            Closeables.closeQuietly(input);
+        }
+    }
+
+    private static ByteBuffer read(FileChannel channel, int size) throws IOException {
+        ByteBuffer bytes = ByteBuffer.allocate(size);
+        while (bytes.hasRemaining() && channel.read(bytes) != -1) {
+            // keep reading up to the end of the file
+        }
+        bytes.flip();
+        return bytes;
+    }
+
+    CharSequence decode(ByteBuffer bytes) throws CharacterCodingException {
+        int length = bytes.remaining();
+        char[] chars = new char[length];
+        if (asciiCompatible) {
+            int start = bytes.position();
+            for (int i = 0; i < length; i++) {
+                byte b = bytes.get(start + i);
+                if (b < 0) {
+                    bytes.position(start + i);
+                    return concat(chars, i, newDecoder().decode(bytes));
+                }
+                chars[i] = (char) b;
+            }
+            return CharBuffer.wrap(chars);
+        }
+        return newDecoder().decode(bytes);
+    }
+
+    /**
+     * Appends the decoded remainder to the ASCII prefix, in place whenever
+     * the decoded text is not longer than its bytes.
+     */
+    private static CharSequence concat(char[] chars, int asciiLength, CharBuffer decoded) {
+        int length = asciiLength + decoded.remaining();
+        char[] result = chars;
+        if (length > chars.length) {
+            result = new char[length];
+            System.arraycopy(chars, 0, result, 0, asciiLength);
+        }
+        decoded.get(result, asciiLength, decoded.remaining());
+        return CharBuffer.wrap(result, 0, length);
+    }
+
+    private CharsetDecoder newDecoder() {
+        return charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * The fast path is only valid for charsets decoding each byte below 0x80
+     * to the character of the same value, as UTF-8 or ISO-8859-1 do.
+     */
+    static boolean isAsciiCompatible(Charset charset) {
+        if (!charset.canEncode()) {
+            return false;
+        }
+        byte[] ascii = new byte[ASCII_LIMIT];
+        for (int i = 0; i < ASCII_LIMIT; i++) {
+            ascii[i] = (byte) i;
+        }
+        String decoded = new String(ascii, charset);
+        if (decoded.length() != ASCII_LIMIT) {
+            return false;
+        }
+        for (int i = 0; i < ASCII_LIMIT; i++) {
+            if (decoded.charAt(i) != i) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+}
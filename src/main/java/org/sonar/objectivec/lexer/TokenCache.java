@@ -0,0 +1,148 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec.lexer;
+
+import java.io.File;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+
+/**
+ * Keeps the tokens of the files lexed during an analysis so that later
+ * consumers do not lex them again. Entries are keyed by file path and
+ * checked against the length and the last modification time of the file
+ * when they are taken, which does not read the file again. The
+ * least recently stored entries are evicted when the estimated size of the
+ * cached tokens exceeds the memory budget; consumers then simply lex the file
+ * again.
+ */
+public class TokenCache {
+
+    // rough estimate of a Token and its fields, value characters excluded
+    private static final int TOKEN_OVERHEAD = 96;
+
+    private final long maxMemory;
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>();
+    private long usedMemory;
+
+    /**
+     * @param maxMemory memory budget in bytes, 0 disables the cache.
+     */
+    public TokenCache(long maxMemory) {
+        this.maxMemory = maxMemory;
+    }
+
+    public synchronized void put(File file, List<Token> tokens) {
+        if (maxMemory <= 0) {
+            return;
+        }
+        long size = estimateSize(tokens);
+        if (size > maxMemory) {
+            return;
+        }
+        release(entries.remove(file.getPath()));
+        entries.put(file.getPath(), new Entry(tokens, file.length(), file.lastModified(), size));
+        usedMemory += size;
+        evict();
+    }
+
+    /**
+     * Removes the tokens of the file from the cache.
+     *
+     * @return the cached tokens, or null when they were never stored, were
+     *         evicted or the file changed since they were stored.
+     */
+    public List<Token> take(File file) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.remove(file.getPath());
+            release(entry);
+        }
+        if (entry == null || entry.length != file.length() || entry.lastModified != file.lastModified()) {
+            return null;
+        }
+        return entry.tokens;
+    }
+
+    /**
+     * @return the memory budget in bytes.
+     */
+    public long getMaxMemory() {
+        return maxMemory;
+    }
+
+    /**
+     * Drops every cached entry, e.g. once no consumer is left to take them.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        usedMemory = 0;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void release(Entry entry) {
+        if (entry != null) {
+            usedMemory -= entry.size;
+        }
+    }
+
+    private void evict() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (usedMemory > maxMemory && eldest.hasNext()) {
+            usedMemory -= eldest.next().size;
+            eldest.remove();
+        }
+    }
+
+    private static long estimateSize(List<Token> tokens) {
+        long size = 0;
+        for (Token token : tokens) {
+            size += TOKEN_OVERHEAD + 2L * token.getValue().length();
+            for (Trivia trivia : token.getTrivia()) {
+                size += TOKEN_OVERHEAD + 2L * trivia.getToken().getValue().length();
+            }
+        }
+        return size;
+    }
+
+    private static final class Entry {
+
+        private final List<Token> tokens;
+        private final long length;
+        private final long lastModified;
+        private final long size;
+
+        Entry(List<Token> tokens, long length, long lastModified, long size) {
+            this.tokens = tokens;
+            this.length = length;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+    }
+
+}
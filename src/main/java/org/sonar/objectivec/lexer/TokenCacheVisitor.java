@@ -0,0 +1,62 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec.lexer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sonar.objectivec.api.ObjectiveCGrammar;
+
+import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.squid.SquidAstVisitor;
+
+/**
+ * Stores the tokens of each scanned file in a {@link TokenCache}.
+ */
+public class TokenCacheVisitor extends SquidAstVisitor<ObjectiveCGrammar> implements AstAndTokenVisitor {
+
+    private final TokenCache cache;
+    private List<Token> tokens;
+
+    public TokenCacheVisitor(TokenCache cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public void visitFile(AstNode astNode) {
+        tokens = new ArrayList<Token>();
+    }
+
+    public void visitToken(Token token) {
+        tokens.add(token);
+    }
+
+    @Override
+    public void leaveFile(AstNode astNode) {
+        // no AST on parse errors: the file is not lexed completely
+        if (astNode != null) {
+            cache.put(getContext().getFile(), tokens);
+        }
+        tokens = null;
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec.lexer;
+
+import com.sonar.sslr.api.TokenType;
+
+/**
+ * Character trie over the values of a set of token types. Each node keeps its
+ * children in an array indexed by character, spanning only the range of
+ * characters actually used below that node.
+ */
+final class TokenTypeTrie {
+
+    private final Node root = new Node();
+
+    TokenTypeTrie(TokenType... types) {
+        for (TokenType type : types) {
+            add(type);
+        }
+    }
+
+    private void add(TokenType type) {
+        Node node = root;
+        String value = type.getValue();
+        for (int i = 0; i < value.length(); i++) {
+            node = node.getOrCreateChild(value.charAt(i));
+        }
+        node.type = type;
+    }
+
+    /**
+     * @return the token type whose value is exactly the characters of input
+     *         between start (inclusive) and end (exclusive), or null.
+     */
+    TokenType match(CharSequence input, int start, int end) {
+        Node node = root;
+        for (int i = start; i < end && node != null; i++) {
+            node = node.child(input.charAt(i));
+        }
+        return node == null ? null : node.type;
+    }
+
+    /**
+     * @return the token type with the longest value that prefixes input from
+     *         start, or null. The input is expected to return a character
+     *         without child (such as 0xFFFF) past its end.
+     */
+    TokenType longestMatch(CharSequence input, int start) {
+        TokenType longest = null;
+        Node node = root.child(input.charAt(start));
+        int i = start;
+        while (node != null) {
+            if (node.type != null) {
+                longest = node.type;
+            }
+            node = node.child(input.charAt(++i));
+        }
+        return longest;
+    }
+
+    private static final class Node {
+
+        private Node[] children;
+        private char offset;
+        private TokenType type;
+
+        Node child(char c) {
+            if (children == null || c < offset || c >= offset + children.length) {
+                return null;
+            }
+            return children[c - offset];
+        }
+
+        Node getOrCreateChild(char c) {
+            Node child = child(c);
+            if (child == null) {
+                ensureCapacity(c);
+                child = new Node();
+                children[c - offset] = child;
+            }
+            return child;
+        }
+
+        private void ensureCapacity(char c) {
+            if (children == null) {
+                children = new Node[1];
+                offset = c;
+            } else if (c < offset) {
+                Node[] grown = new Node[children.length + offset - c];
+                System.arraycopy(children, 0, grown, offset - c, children.length);
+                children = grown;
+                offset = c;
+            } else if (c >= offset + children.length) {
+                Node[] grown = new Node[c - offset + 1];
+                System.arraycopy(children, 0, grown, 0, children.length);
+                children = grown;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,210 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec.metrics;
+
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import org.sonar.objectivec.api.ObjectiveCGrammar;
+import org.sonar.objectivec.api.ObjectiveCKeyword;
+import org.sonar.objectivec.api.ObjectiveCMetric;
+import org.sonar.objectivec.api.ObjectiveCPunctuator;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceFile;
+
+import com.sonar.sslr.api.AstAndTokenVisitor;
+import com.sonar.sslr.api.AstNode;
+import com.sonar.sslr.api.AstNodeType;
+import com.sonar.sslr.api.CommentAnalyser;
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.squid.SquidAstVisitor;
+
+/**
+ * Computes in a single traversal what <code>LinesVisitor</code>, <code>LinesOfCodeVisitor</code>,
+ * <code>CommentsVisitor</code>, <code>CounterVisitor</code> and <code>ComplexityVisitor</code> compute in one
+ * traversal each, with the same results.
+ * <p>
+ * Counts are kept in primitive fields and added to a source code only when the traversal leaves it, so that
+ * functions still get their own measures. Comment lines are kept in bit sets.
+ */
+public class ObjectiveCMetricsVisitor extends SquidAstVisitor<ObjectiveCGrammar> implements AstAndTokenVisitor {
+
+    private static final int FUNCTION = 1;
+    private static final int STATEMENT = 2;
+    private static final int COMPLEXITY = 4;
+
+    private final boolean ignoreHeaderComments;
+    private final Map<AstNodeType, Integer> kinds = new IdentityHashMap<AstNodeType, Integer>();
+
+    private SourceCode current;
+    private int linesOfCode;
+    private int statements;
+    private int complexity;
+    private int functions;
+
+    private int lastTokenLine;
+    private int lines;
+    private boolean seenFirstToken;
+    private final BitSet commentLines = new BitSet();
+    private final BitSet blankCommentLines = new BitSet();
+    private final BitSet noSonarLines = new BitSet();
+
+    public ObjectiveCMetricsVisitor(boolean ignoreHeaderComments) {
+        this.ignoreHeaderComments = ignoreHeaderComments;
+    }
+
+    @Override
+    public void init() {
+        ObjectiveCGrammar grammar = getContext().getGrammar();
+
+        register(FUNCTION | COMPLEXITY, grammar.functionDefinition, grammar.methodDefinition);
+        register(STATEMENT | COMPLEXITY, grammar.ifStatement, grammar.whileStatement, grammar.doStatement, grammar.forStatement);
+        register(STATEMENT, grammar.expressionStatement, grammar.switchStatement, grammar.jumpStatement, grammar.tryStatement,
+                grammar.throwStatement, grammar.synchronizedStatement, grammar.autoreleasepoolStatement);
+        register(COMPLEXITY, grammar.blockExpression, grammar.catchClause, ObjectiveCKeyword.CASE, ObjectiveCPunctuator.AMPAMP,
+                ObjectiveCPunctuator.BARBAR, ObjectiveCPunctuator.QUESTION);
+
+        subscribeTo(kinds.keySet().toArray(new AstNodeType[kinds.size()]));
+    }
+
+    private void register(int kind, AstNodeType... types) {
+        for (AstNodeType type : types) {
+            kinds.put(type, kind);
+        }
+    }
+
+    @Override
+    public void visitFile(AstNode astNode) {
+        current = getContext().peekSourceCode();
+        lastTokenLine = -1;
+        lines = 0;
+        seenFirstToken = false;
+        commentLines.clear();
+        blankCommentLines.clear();
+        noSonarLines.clear();
+    }
+
+    @Override
+    public void visitNode(AstNode astNode) {
+        switchTo(getContext().peekSourceCode());
+        int kind = kinds.get(astNode.getType());
+        if ((kind & FUNCTION) != 0) {
+            functions++;
+        }
+        if ((kind & STATEMENT) != 0) {
+            statements++;
+        }
+        if ((kind & COMPLEXITY) != 0) {
+            complexity++;
+        }
+    }
+
+    @Override
+    public void leaveNode(AstNode astNode) {
+        // the measures of a function must be added before it is left
+        if ((kinds.get(astNode.getType()) & FUNCTION) != 0) {
+            flush();
+        }
+    }
+
+    public void visitToken(Token token) {
+        if (token.hasTrivia()) {
+            visitComments(token);
+        }
+        seenFirstToken = true;
+        if (token.getType() == GenericTokenType.EOF) {
+            lines = token.getLine();
+            return;
+        }
+        if (token.getLine() != lastTokenLine) {
+            switchTo(getContext().peekSourceCode());
+            linesOfCode++;
+            lastTokenLine = token.getLine();
+        }
+    }
+
+    private void visitComments(Token token) {
+        if (ignoreHeaderComments && !seenFirstToken) {
+            return;
+        }
+        CommentAnalyser commentAnalyser = getContext().getCommentAnalyser();
+        for (Trivia trivia : token.getTrivia()) {
+            if (trivia.isComment()) {
+                Token comment = trivia.getToken();
+                String[] contentLines = commentAnalyser.getContents(comment.getOriginalValue()).split("(\r)?\n|\r", -1);
+                int line = comment.getLine();
+                for (String contentLine : contentLines) {
+                    if (contentLine.contains("NOSONAR")) {
+                        noSonarLines.set(line);
+                    } else if (commentAnalyser.isBlank(contentLine)) {
+                        blankCommentLines.set(line);
+                    } else {
+                        commentLines.set(line);
+                    }
+                    line++;
+                }
+            }
+        }
+    }
+
+    @Override
+    public void leaveFile(AstNode astNode) {
+        SourceCode file = getContext().peekSourceCode();
+        switchTo(file);
+        file.add(ObjectiveCMetric.LINES, lines);
+        file.add(ObjectiveCMetric.COMMENT_LINES, commentLines.cardinality());
+        file.add(ObjectiveCMetric.COMMENT_BLANK_LINES, blankCommentLines.cardinality());
+        for (int line = noSonarLines.nextSetBit(0); line >= 0; line = noSonarLines.nextSetBit(line + 1)) {
+            ((SourceFile) file).addNoSonarTagLine(line);
+        }
+        flush();
+        current = null;
+    }
+
+    private void switchTo(SourceCode sourceCode) {
+        if (sourceCode != current) {
+            flush();
+            current = sourceCode;
+        }
+    }
+
+    private void flush() {
+        if (linesOfCode != 0) {
+            current.add(ObjectiveCMetric.LINES_OF_CODE, linesOfCode);
+            linesOfCode = 0;
+        }
+        if (statements != 0) {
+            current.add(ObjectiveCMetric.STATEMENTS, statements);
+            statements = 0;
+        }
+        if (complexity != 0) {
+            current.add(ObjectiveCMetric.COMPLEXITY, complexity);
+            complexity = 0;
+        }
+        if (functions != 0) {
+            current.add(ObjectiveCMetric.FUNCTIONS, functions);
+            functions = 0;
+        }
+    }
+
+}
@@ -20,17 +20,230 @@
 package org.sonar.objectivec.parser;
 
 import static com.sonar.sslr.api.GenericTokenType.EOF;
-import static com.sonar.sslr.api.GenericTokenType.LITERAL;
+import static com.sonar.sslr.api.GenericTokenType.IDENTIFIER;
+import static com.sonar.sslr.impl.matcher.GrammarFunctions.Advanced.anyToken;
+import static com.sonar.sslr.impl.matcher.GrammarFunctions.Predicate.not;
+import static com.sonar.sslr.impl.matcher.GrammarFunctions.Standard.and;
 import static com.sonar.sslr.impl.matcher.GrammarFunctions.Standard.o2n;
+import static com.sonar.sslr.impl.matcher.GrammarFunctions.Standard.one2n;
+import static com.sonar.sslr.impl.matcher.GrammarFunctions.Standard.opt;
+import static com.sonar.sslr.impl.matcher.GrammarFunctions.Standard.or;
+import static org.sonar.objectivec.api.ObjectiveCKeyword.*;
+import static org.sonar.objectivec.api.ObjectiveCPunctuator.*;
+import static org.sonar.objectivec.api.ObjectiveCTokenType.CHARACTER_LITERAL;
+import static org.sonar.objectivec.api.ObjectiveCTokenType.NUMERIC_LITERAL;
+import static org.sonar.objectivec.api.ObjectiveCTokenType.PREPROCESSOR;
+import static org.sonar.objectivec.api.ObjectiveCTokenType.STRING_LITERAL;
 
 import org.sonar.objectivec.api.ObjectiveCGrammar;
 
+/**
+ * Structural grammar: classes, categories, protocols, methods, C functions, blocks and statements are recognized,
+ * whereas expressions and declarations are only split on their brackets, as telling them apart requires the types
+ * which are not known without preprocessing. Whatever is not recognized is skipped one token at a time, so that any
+ * file can be parsed.
+ * <p>
+ * Rules are memoized by the parser, and every alternative which may fail is bounded by the next semicolon or
+ * closing bracket, so parsing stays linear on real code.
+ */
 public class ObjectiveCGrammarImpl extends ObjectiveCGrammar {
 
     public ObjectiveCGrammarImpl() {
 
-         program.is(o2n(LITERAL), EOF);
+        lexical();
+        expressions();
+        statements();
+        declarations();
+        classes();
+
+        program.is(sourceElements, EOF);
+        sourceElements.is(o2n(sourceElement));
+        sourceElement.is(or(
+                preprocessorDirective,
+                forwardDeclaration,
+                classInterface,
+                classImplementation,
+                protocolDeclaration,
+                methodDefinition,
+                functionDefinition,
+                declaration,
+                and(not(EOF), anyToken())));
+
+    }
+
+    private void lexical() {
+        // Contextual keywords, which are also valid names
+        identifierName.is(or(
+                IDENTIFIER,
+                IN, OUT, INOUT, BYCOPY, BYREF, ONEWAY,
+                ALLOC, RELEASE, AUTORELEASE,
+                READWRITE, READONLY, ASSIGN, RETAIN, COPY, ATOMIC, NONATOMIC, STRONG, WEAK,
+                BOOL, ID, CLASS, IMP, SEL));
+
+        literal.is(or(NUMERIC_LITERAL, CHARACTER_LITERAL, stringLiteral, booleanLiteral, nullLiteral));
+        nullLiteral.is(NIL);
+        booleanLiteral.is(or(YES, NO));
+        stringLiteral.is(STRING_LITERAL);
+
+        preprocessorDirective.is(PREPROCESSOR);
+    }
+
+    private void expressions() {
+        expression.is(one2n(expressionPart));
+        expressionPart.is(or(
+                blockExpression,
+                messageExpression,
+                objectLiteral,
+                protocolExpression,
+                parenthesizedExpression,
+                braceExpression,
+                literal,
+                preprocessorDirective,
+                primitiveToken));
+
+        // Any token which neither opens nor closes a construct
+        primitiveToken.is(not(or(
+                SEMICOLON, LPARENTHESIS, RPARENTHESIS, LBRACKET, RBRACKET, LCURLYBRACE, RCURLYBRACE,
+                IF, ELSE, SWITCH, CASE, DEFAULT, WHILE, DO, FOR, GOTO, CONTINUE, BREAK, RETURN,
+                AT_INTERFACE, AT_IMPLEMENTATION, AT_PROTOCOL, AT_END, AT_CLASS, AT_PROPERTY, AT_SYNTHESIZE, AT_DYNAMIC,
+                AT_REQUIRED, AT_OPTIONAL, AT_TRY, AT_CATCH, AT_FINALLY, AT_THROW, AT_SYNCHRONIZED, AT_AUTORELEASEPOOL,
+                PREPROCESSOR, EOF)), anyToken());
+
+        parenthesizedExpression.is(LPARENTHESIS, o2n(expressionPart), RPARENTHESIS);
+        braceExpression.is(LCURLYBRACE, o2n(or(expressionPart, SEMICOLON)), RCURLYBRACE);
+
+        // Array subscripts cannot be told apart from messages without the types
+        messageExpression.is(LBRACKET, o2n(expressionPart), RBRACKET);
+
+        objectLiteral.is(AT, or(and(LBRACKET, o2n(expressionPart), RBRACKET), braceExpression, parenthesizedExpression));
+        protocolExpression.is(AT_PROTOCOL, parenthesizedExpression);
+
+        // A caret not followed by a body is the exclusive or operator
+        blockExpression.is(CARET, o2n(or(
+                parenthesizedExpression,
+                identifierName,
+                VOID, CHAR, SHORT, INT, LONG, FLOAT, DOUBLE, SIGNED, UNSIGNED, CONST, STRUCT, UNION, ENUM, STAR)),
+                compoundStatement);
+    }
+
+    private void statements() {
+        statement.is(or(
+                compoundStatement,
+                caseLabel,
+                label,
+                ifStatement,
+                switchStatement,
+                whileStatement,
+                doStatement,
+                forStatement,
+                jumpStatement,
+                tryStatement,
+                throwStatement,
+                synchronizedStatement,
+                autoreleasepoolStatement,
+                preprocessorDirective,
+                emptyStatement,
+                expressionStatement));
+
+        compoundStatement.is(LCURLYBRACE, o2n(or(statement, and(not(or(RCURLYBRACE, AT_END, EOF)), anyToken()))),
+                RCURLYBRACE);
+        expressionStatement.is(expression, SEMICOLON);
+        emptyStatement.is(SEMICOLON);
+
+        caseLabel.is(or(
+                and(CASE, o2n(not(COLON), expressionPart), COLON),
+                and(DEFAULT, COLON)));
+        label.is(identifierName, COLON);
+
+        ifStatement.is(IF, parenthesizedExpression, statement, opt(ELSE, statement));
+        switchStatement.is(SWITCH, parenthesizedExpression, statement);
+        whileStatement.is(WHILE, parenthesizedExpression, statement);
+        doStatement.is(DO, statement, WHILE, parenthesizedExpression, SEMICOLON);
+        forStatement.is(FOR, LPARENTHESIS, o2n(or(expressionPart, SEMICOLON)), RPARENTHESIS, statement);
+        jumpStatement.is(or(RETURN, BREAK, CONTINUE, GOTO), opt(expression), SEMICOLON);
+
+        tryStatement.is(AT_TRY, compoundStatement, o2n(catchClause), opt(finallyClause));
+        catchClause.is(AT_CATCH, parenthesizedExpression, compoundStatement);
+        finallyClause.is(AT_FINALLY, compoundStatement);
+        throwStatement.is(AT_THROW, opt(expression), SEMICOLON);
+        synchronizedStatement.is(AT_SYNCHRONIZED, parenthesizedExpression, compoundStatement);
+        autoreleasepoolStatement.is(AT_AUTORELEASEPOOL, compoundStatement);
+    }
+
+    private void declarations() {
+        declaration.is(o2n(expressionPart), SEMICOLON);
+
+        // Return type and storage class, up to the name of the function. Typedefs and macros followed by enumerators,
+        // such as NS_ENUM(NSInteger, Kind) { KindA, KindB }, are declarations.
+        functionDefinition.is(
+                o2n(not(and(identifierName, LPARENTHESIS)), declarationSpecifier),
+                identifierName,
+                parenthesizedExpression,
+                o2n(not(or(LCURLYBRACE, SEMICOLON, RCURLYBRACE, EQ, AT_END, EOF)), expressionPart),
+                not(enumeratorList),
+                compoundStatement);
+        declarationSpecifier.is(not(or(EQ, COMMA, CARET, TYPEDEF)), primitiveToken);
+        // Braces holding no statement at all
+        enumeratorList.is(LCURLYBRACE,
+                one2n(not(or(SEMICOLON, LCURLYBRACE, RCURLYBRACE, PREPROCESSOR, AT_END, EOF)), anyToken()),
+                RCURLYBRACE);
+    }
+
+    private void classes() {
+        forwardDeclaration.is(or(AT_CLASS, AT_PROTOCOL), identifierName, o2n(COMMA, identifierName), SEMICOLON);
+
+        classInterface.is(
+                AT_INTERFACE, identifierName,
+                opt(or(and(COLON, identifierName), and(LPARENTHESIS, opt(identifierName), RPARENTHESIS))),
+                opt(protocolReferenceList),
+                opt(instanceVariables),
+                o2n(interfaceDeclaration),
+                AT_END);
+        classImplementation.is(
+                AT_IMPLEMENTATION, identifierName,
+                opt(or(and(COLON, identifierName), and(LPARENTHESIS, opt(identifierName), RPARENTHESIS))),
+                opt(instanceVariables),
+                o2n(implementationDefinition),
+                AT_END);
+        protocolDeclaration.is(AT_PROTOCOL, identifierName, opt(protocolReferenceList), o2n(interfaceDeclaration), AT_END);
+        protocolReferenceList.is(LT, identifierName, o2n(COMMA, identifierName), GT);
+
+        instanceVariables.is(LCURLYBRACE, o2n(or(
+                AT_PRIVATE, AT_PROTECTED, AT_PACKAGE, AT_PUBLIC,
+                preprocessorDirective,
+                declaration,
+                and(not(or(RCURLYBRACE, AT_END, EOF)), anyToken()))), RCURLYBRACE);
+
+        interfaceDeclaration.is(or(
+                preprocessorDirective,
+                propertyDeclaration,
+                methodDeclaration,
+                AT_REQUIRED,
+                AT_OPTIONAL,
+                declaration,
+                and(not(or(AT_END, EOF)), anyToken())));
+        implementationDefinition.is(or(
+                preprocessorDirective,
+                propertyImplementation,
+                methodDefinition,
+                functionDefinition,
+                declaration,
+                and(not(or(AT_END, EOF)), anyToken())));
+
+        propertyDeclaration.is(AT_PROPERTY, o2n(expressionPart), SEMICOLON);
+        propertyImplementation.is(or(AT_SYNTHESIZE, AT_DYNAMIC), o2n(expressionPart), SEMICOLON);
 
+        methodDeclaration.is(methodSignature, SEMICOLON);
+        methodDefinition.is(methodSignature, opt(SEMICOLON), compoundStatement);
+        // Trailing tokens are attributes and variadic parameters
+        methodSignature.is(
+                or(PLUS, MINUS),
+                opt(methodType),
+                methodSelector,
+                o2n(not(or(LCURLYBRACE, SEMICOLON, RCURLYBRACE, AT_END, EOF)), anyToken()));
+        methodType.is(parenthesizedExpression);
+        methodSelector.is(or(one2n(keywordDeclarator), identifierName));
+        keywordDeclarator.is(opt(identifierName), COLON, opt(methodType), identifierName);
     }
 
 }
@@ -20,7 +20,6 @@
 package org.sonar.plugins.objectivec;
 
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
@@ -29,31 +28,48 @@ import java.util.Map;
 import javax.xml.stream.XMLStreamException;
 
 import org.slf4j.LoggerFactory;
-import org.sonar.api.measures.CoverageMeasuresBuilder;
 import org.sonar.api.utils.StaxParser;
 
 final class CoberturaParser {
-    public Map<String, CoverageMeasuresBuilder> parseReport(final File xmlFile) {
-        Map<String, CoverageMeasuresBuilder> result = null;
+    private final SourceFileSet sourceFiles;
+
+    public CoberturaParser() {
+        this(null);
+    }
+
+    /**
+     * @param sources files to read the coverage of, null to read all of
+     *            them.
+     */
+    public CoberturaParser(final SourceFileSet sources) {
+        sourceFiles = sources;
+    }
+
+    public Map<String, FileCoverage> parseReport(final File xmlFile) {
+        Map<String, FileCoverage> result = null;
         try {
-            final InputStream reportStream = new FileInputStream(xmlFile);
-            result = parseReport(reportStream);
-            reportStream.close();
+            final InputStream reportStream = ReportStreams.open(xmlFile);
+            try {
+                result = parseReport(reportStream);
+            } finally {
+                reportStream.close();
+            }
         } catch (final IOException e) {
             LoggerFactory.getLogger(getClass()).error(
                     "Error processing file named {}", xmlFile, e);
-            result = new HashMap<String, CoverageMeasuresBuilder>();
+            result = new HashMap<String, FileCoverage>();
         }
         return result;
     }
 
-    public Map<String, CoverageMeasuresBuilder> parseReport(
+    public Map<String, FileCoverage> parseReport(
             final InputStream xmlFile) {
 
-        final Map<String, CoverageMeasuresBuilder> measuresForReport = new HashMap<String, CoverageMeasuresBuilder>();
+        final Map<String, FileCoverage> measuresForReport = new HashMap<String, FileCoverage>();
         try {
             final StaxParser parser = new StaxParser(
-                    new CoberturaXMLStreamHandler(measuresForReport));
+                    new CoberturaXMLStreamHandler(measuresForReport,
+                            sourceFiles));
             parser.parse(xmlFile);
         } catch (final XMLStreamException e) {
             LoggerFactory.getLogger(getClass()).error(
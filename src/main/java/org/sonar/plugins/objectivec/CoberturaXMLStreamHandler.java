@@ -24,17 +24,47 @@ import java.util.Map;
 import javax.xml.stream.XMLStreamException;
 
 import org.apache.commons.lang.StringUtils;
+import org.codehaus.stax2.XMLStreamReader2;
+import org.codehaus.stax2.typed.TypedValueDecoder;
 import org.codehaus.staxmate.in.SMHierarchicCursor;
 import org.codehaus.staxmate.in.SMInputCursor;
-import org.sonar.api.measures.CoverageMeasuresBuilder;
 import org.sonar.api.utils.StaxParser;
 
+/**
+ * Reads the line and branch coverage of each class of a Cobertura report.
+ * The attributes of the <code>line</code> elements, by far the most numerous,
+ * are decoded in place from the parser buffers through the Stax2 typed
+ * access, without building any String. The lines of classes which are not
+ * part of the project are skipped without being read.
+ */
 class CoberturaXMLStreamHandler implements StaxParser.XmlStreamHandler {
-    private final Map<String, CoverageMeasuresBuilder> measuresForReport;
+    private final Map<String, FileCoverage> measuresForReport;
+    private final SourceFileSet sourceFiles;
+    private final boolean typedAttributes;
+    private final ConditionCoverageDecoder conditionDecoder = new ConditionCoverageDecoder();
+
+    public CoberturaXMLStreamHandler(final Map<String, FileCoverage> data) {
+        this(data, null);
+    }
 
-    public CoberturaXMLStreamHandler(
-            final Map<String, CoverageMeasuresBuilder> data) {
+    /**
+     * @param sources files to read the coverage of, null to read all of
+     *            them.
+     */
+    public CoberturaXMLStreamHandler(final Map<String, FileCoverage> data,
+            final SourceFileSet sources) {
+        this(data, sources, true);
+    }
+
+    /**
+     * @param typedAttributes false to read attributes as Strings, only kept as
+     *            a reference for benchmarks.
+     */
+    CoberturaXMLStreamHandler(final Map<String, FileCoverage> data,
+            final SourceFileSet sources, final boolean typedAttributes) {
         measuresForReport = data;
+        sourceFiles = sources;
+        this.typedAttributes = typedAttributes;
     }
 
     public void stream(final SMHierarchicCursor rootCursor)
@@ -53,48 +83,142 @@ class CoberturaXMLStreamHandler implements StaxParser.XmlStreamHandler {
     private void collectFileMeasures(final SMInputCursor clazz)
             throws XMLStreamException {
         while (clazz.getNext() != null) {
-            collectFileData(clazz);
+            final String fileName = clazz.getAttrValue("filename");
+            // moving to the next class skips the lines of this one
+            if (sourceFiles == null || sourceFiles.contains(fileName)) {
+                collectFileData(clazz, fileName);
+            }
         }
     }
 
-    private void collectFileData(final SMInputCursor clazz)
-            throws XMLStreamException {
-        final CoverageMeasuresBuilder builder = builderFor(clazz);
+    private void collectFileData(final SMInputCursor clazz,
+            final String fileName) throws XMLStreamException {
+        final FileCoverage coverage = coverageFor(fileName);
         final SMInputCursor line = clazz.childElementCursor("lines").advance()
                 .childElementCursor("line");
 
         while (null != line.getNext()) {
-            recordCoverageFor(line, builder);
+            if (typedAttributes) {
+                recordTypedCoverageFor(line.getStreamReader(), coverage);
+            } else {
+                recordCoverageFor(line, coverage);
+            }
+        }
+    }
+
+    private void recordTypedCoverageFor(final XMLStreamReader2 line,
+            final FileCoverage coverage) throws XMLStreamException {
+        int lineId = -1;
+        long noHits = 0;
+        boolean isBranch = false;
+        int conditionIndex = -1;
+        for (int i = 0; i < line.getAttributeCount(); i++) {
+            final String name = line.getAttributeLocalName(i);
+            if ("number".equals(name)) {
+                lineId = line.getAttributeAsInt(i);
+            } else if ("hits".equals(name)) {
+                noHits = line.getAttributeAsLong(i);
+            } else if ("branch".equals(name)) {
+                isBranch = line.getAttributeAsBoolean(i);
+            } else if ("condition-coverage".equals(name)) {
+                conditionIndex = i;
+            }
+        }
+        if (lineId < 0) {
+            throw new XMLStreamException("Line without number",
+                    line.getLocation());
+        }
+
+        coverage.addHits(lineId, (int) Math.min(noHits, Integer.MAX_VALUE));
+
+        if (isBranch && conditionIndex >= 0) {
+            line.getAttributeAs(conditionIndex, conditionDecoder);
+            if (conditionDecoder.isValid()) {
+                coverage.addConditions(lineId, conditionDecoder.total,
+                        conditionDecoder.covered);
+            }
         }
     }
 
     private void recordCoverageFor(final SMInputCursor line,
-            final CoverageMeasuresBuilder builder) throws XMLStreamException {
+            final FileCoverage coverage) throws XMLStreamException {
         final int lineId = Integer.parseInt(line.getAttrValue("number"));
         final int noHits = (int) Math.min(
                 Long.parseLong(line.getAttrValue("hits")), Integer.MAX_VALUE);
         final String isBranch = line.getAttrValue("branch");
         final String conditionText = line.getAttrValue("condition-coverage");
 
-        builder.setHits(lineId, noHits);
+        coverage.addHits(lineId, noHits);
 
         if (StringUtils.equals(isBranch, "true")
                 && StringUtils.isNotBlank(conditionText)) {
             final String[] conditions = StringUtils.split(
                     StringUtils.substringBetween(conditionText, "(", ")"), "/");
-            builder.setConditions(lineId, Integer.parseInt(conditions[1]),
+            coverage.addConditions(lineId, Integer.parseInt(conditions[1]),
                     Integer.parseInt(conditions[0]));
         }
     }
 
-    private CoverageMeasuresBuilder builderFor(final SMInputCursor clazz)
-            throws XMLStreamException {
-        final String fileName = clazz.getAttrValue("filename");
-        CoverageMeasuresBuilder builder = measuresForReport.get(fileName);
-        if (builder == null) {
-            builder = CoverageMeasuresBuilder.create();
-            measuresForReport.put(fileName, builder);
+    private FileCoverage coverageFor(final String fileName) {
+        FileCoverage coverage = measuresForReport.get(fileName);
+        if (coverage == null) {
+            coverage = new FileCoverage();
+            measuresForReport.put(fileName, coverage);
+        }
+        return coverage;
+    }
+
+    /**
+     * Decodes the covered and total conditions of a
+     * <code>condition-coverage</code> value such as <code>50% (1/2)</code>,
+     * straight from the characters of the attribute. Invalid values are
+     * ignored, as blank ones are.
+     */
+    private static final class ConditionCoverageDecoder extends
+            TypedValueDecoder {
+        private int covered;
+        private int total;
+        private boolean valid;
+
+        @Override
+        public void decode(final String value) {
+            decode(value.toCharArray(), 0, value.length());
+        }
+
+        @Override
+        public void decode(final char[] buffer, final int start, final int end) {
+            valid = false;
+            int i = start;
+            while (i < end && buffer[i] != '(') {
+                i++;
+            }
+            final int coveredStart = ++i;
+            covered = 0;
+            while (i < end && isDigit(buffer[i])) {
+                covered = covered * 10 + buffer[i++] - '0';
+            }
+            if (i == coveredStart || i >= end || buffer[i] != '/') {
+                return;
+            }
+            final int totalStart = ++i;
+            total = 0;
+            while (i < end && isDigit(buffer[i])) {
+                total = total * 10 + buffer[i++] - '0';
+            }
+            valid = i > totalStart && i < end && buffer[i] == ')';
+        }
+
+        @Override
+        public void handleEmptyValue() {
+            valid = false;
+        }
+
+        public boolean isValid() {
+            return valid;
+        }
+
+        private static boolean isDigit(final char c) {
+            return c >= '0' && c <= '9';
         }
-        return builder;
     }
-}
\ No newline at end of file
+}
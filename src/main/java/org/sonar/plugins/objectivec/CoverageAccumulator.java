@@ -0,0 +1,57 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Merges the coverage of reports parsed on several threads. Merging sums
+ * hits and keeps the largest condition counts, so the result does not
+ * depend on the order in which reports are added.
+ */
+final class CoverageAccumulator {
+    private final ConcurrentMap<String, FileCoverage> coverageByFile = new ConcurrentHashMap<String, FileCoverage>();
+
+    /**
+     * Takes over the coverage of one report, which must no longer be
+     * modified by the caller.
+     */
+    public void add(final Map<String, FileCoverage> measuresForReport) {
+        for (final Map.Entry<String, FileCoverage> entry : measuresForReport
+                .entrySet()) {
+            final FileCoverage coverage = coverageByFile.putIfAbsent(
+                    entry.getKey(), entry.getValue());
+            if (coverage != null) {
+                synchronized (coverage) {
+                    coverage.merge(entry.getValue());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the merged coverage, once all the reports are added.
+     */
+    public Map<String, FileCoverage> getCoverage() {
+        return coverageByFile;
+    }
+}
@@ -19,7 +19,6 @@
  */
 package org.sonar.plugins.objectivec;
 
-import java.io.File;
 import java.util.Map;
 
 import org.slf4j.LoggerFactory;
@@ -31,30 +30,36 @@ import org.sonar.api.resources.Project;
 final class CoverageMeasuresPersistor {
     private final Project project;
     private final SensorContext context;
+    private final ObjectiveCResourceResolver resourceResolver;
 
     public CoverageMeasuresPersistor(final Project p, final SensorContext c) {
+        this(p, c, new ObjectiveCResourceResolver());
+    }
+
+    public CoverageMeasuresPersistor(final Project p, final SensorContext c,
+            final ObjectiveCResourceResolver resolver) {
         project = p;
         context = c;
+        resourceResolver = resolver;
     }
 
-    public void saveMeasures(
-            final Map<String, CoverageMeasuresBuilder> coverageMeasures) {
-        for (final Map.Entry<String, CoverageMeasuresBuilder> entry : coverageMeasures
+    public void saveMeasures(final Map<String, FileCoverage> coverageMeasures) {
+        for (final Map.Entry<String, FileCoverage> entry : coverageMeasures
                 .entrySet()) {
             saveMeasuresForFile(entry.getValue(), entry.getKey());
         }
     }
 
-    private void saveMeasuresForFile(
-            final CoverageMeasuresBuilder measureBuilder, final String filePath) {
+    private void saveMeasuresForFile(final FileCoverage coverage,
+            final String filePath) {
         LoggerFactory.getLogger(getClass()).debug("Saving measures for {}",
                 filePath);
-        final org.sonar.api.resources.File objcfile = org.sonar.api.resources.File
-                .fromIOFile(new File(filePath), project);
-        if (fileExists(context, objcfile)) {
+        final org.sonar.api.resources.File objcfile = resourceResolver
+                .resolve(filePath, project, context);
+        if (objcfile != null) {
             LoggerFactory.getLogger(getClass()).debug(
                     "File {} was found in the project.", filePath);
-            saveMeasures(measureBuilder, objcfile);
+            saveMeasures(coverage.createMeasuresBuilder(), objcfile);
         }
     }
 
@@ -66,9 +71,4 @@ final class CoverageMeasuresPersistor {
             context.saveMeasure(objcfile, measure);
         }
     }
-
-    private boolean fileExists(final SensorContext context,
-            final org.sonar.api.resources.File file) {
-        return context.getResource(file) != null;
-    }
 }
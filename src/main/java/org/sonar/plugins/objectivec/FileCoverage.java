@@ -0,0 +1,133 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.util.Arrays;
+
+import org.sonar.api.measures.CoverageMeasuresBuilder;
+
+/**
+ * Line and branch coverage of one file, merged over any number of reports.
+ * Values are held in int arrays indexed by line number, the condition
+ * arrays only being allocated once a branch is reported. Hits of a line
+ * reported several times are summed, conditions are combined by keeping the
+ * largest number of conditions and of covered conditions, as reports only
+ * tell how many conditions were covered and not which ones.
+ */
+final class FileCoverage {
+    private static final int NOT_REPORTED = -1;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private int[] hits = newHits(INITIAL_CAPACITY);
+    private int[] conditions;
+    private int[] coveredConditions;
+    private int lastLine;
+
+    public void addHits(final int line, final int lineHits) {
+        ensureCapacity(line);
+        hits[line] = hits[line] == NOT_REPORTED ? lineHits : add(hits[line],
+                lineHits);
+        lastLine = Math.max(lastLine, line);
+    }
+
+    public void addConditions(final int line, final int lineConditions,
+            final int lineCoveredConditions) {
+        ensureCapacity(line);
+        if (conditions == null) {
+            conditions = new int[hits.length];
+            coveredConditions = new int[hits.length];
+        }
+        conditions[line] = Math.max(conditions[line], lineConditions);
+        coveredConditions[line] = Math.min(conditions[line], Math.max(
+                coveredConditions[line], lineCoveredConditions));
+        lastLine = Math.max(lastLine, line);
+    }
+
+    public void merge(final FileCoverage other) {
+        for (int line = 1; line <= other.lastLine; line++) {
+            if (other.hits[line] != NOT_REPORTED) {
+                addHits(line, other.hits[line]);
+            }
+            if (other.conditions != null && other.conditions[line] > 0) {
+                addConditions(line, other.conditions[line],
+                        other.coveredConditions[line]);
+            }
+        }
+    }
+
+    /**
+     * @return the hits of the line, or null when no report covers it.
+     */
+    public Integer getHits(final int line) {
+        return line > lastLine || hits[line] == NOT_REPORTED ? null
+                : hits[line];
+    }
+
+    public int getConditions(final int line) {
+        return conditions == null || line > lastLine ? 0 : conditions[line];
+    }
+
+    public int getCoveredConditions(final int line) {
+        return conditions == null || line > lastLine ? 0
+                : coveredConditions[line];
+    }
+
+    public CoverageMeasuresBuilder createMeasuresBuilder() {
+        final CoverageMeasuresBuilder builder = CoverageMeasuresBuilder
+                .create();
+        for (int line = 1; line <= lastLine; line++) {
+            if (hits[line] != NOT_REPORTED) {
+                builder.setHits(line, hits[line]);
+            }
+            if (conditions != null && conditions[line] > 0) {
+                builder.setConditions(line, conditions[line],
+                        coveredConditions[line]);
+            }
+        }
+        return builder;
+    }
+
+    private void ensureCapacity(final int line) {
+        if (line < 0) {
+            throw new IllegalArgumentException("Invalid line number " + line);
+        }
+        if (line < hits.length) {
+            return;
+        }
+        final int capacity = Math.max(line + 1, hits.length * 2);
+        final int previousLength = hits.length;
+        hits = Arrays.copyOf(hits, capacity);
+        Arrays.fill(hits, previousLength, capacity, NOT_REPORTED);
+        if (conditions != null) {
+            conditions = Arrays.copyOf(conditions, capacity);
+            coveredConditions = Arrays.copyOf(coveredConditions, capacity);
+        }
+    }
+
+    private static int[] newHits(final int capacity) {
+        final int[] array = new int[capacity];
+        Arrays.fill(array, NOT_REPORTED);
+        return array;
+    }
+
+    private static int add(final int left, final int right) {
+        return (int) Math.min((long) left + right, Integer.MAX_VALUE);
+    }
+}
@@ -0,0 +1,393 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.resources.Project;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.Violation;
+
+/**
+ * Reads the violations of a report written by the OCLint JSON reporter:
+ *
+ * <pre>
+ * {"version": "0.8", "summary": {...}, "violation": [
+ *   {"path": "/src/File.m", "startLine": 19, "startColumn": 13,
+ *    "endLine": 19, "endColumn": 20, "rule": "long line",
+ *    "category": "size", "priority": 3, "message": "..."}, ...]}
+ * </pre>
+ *
+ * The report is scanned one character at a time and each violation is
+ * handed over as soon as its object is closed, without building any
+ * document tree. Members other than the ones of the violations are skipped
+ * without being decoded. The violations are the ones the PMD XML report of
+ * the same run gives through {@link OCLintXMLStreamHandler}.
+ */
+final class OCLintJSONReportReader {
+    private static final int BUFFER_SIZE = 8192;
+    // OCLint priorities are 1 to 3, a missing one is taken as the lowest
+    private static final int DEFAULT_PRIORITY = 3;
+
+    private final OCLintParser.ViolationHandler violationHandler;
+    private final Project project;
+    private final SensorContext context;
+    private final ObjectiveCResourceResolver resourceResolver;
+    private final OCLintRuleCache ruleCache;
+
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private final StringBuilder text = new StringBuilder();
+    private Reader reader;
+    private int position;
+    private int limit;
+    private long offset;
+    private String lastPath;
+
+    public OCLintJSONReportReader(final OCLintParser.ViolationHandler handler,
+            final Project p, final SensorContext c,
+            final ObjectiveCResourceResolver resolver,
+            final OCLintRuleCache rules) {
+        violationHandler = handler;
+        project = p;
+        context = c;
+        resourceResolver = resolver;
+        ruleCache = rules;
+    }
+
+    public void read(final Reader input) throws IOException {
+        reader = input;
+        position = 0;
+        limit = 0;
+        offset = 0;
+        lastPath = null;
+
+        if (peek() == '\uFEFF') {
+            position++;
+        }
+        expect('{');
+        if (!consume('}')) {
+            do {
+                readText(true);
+                expect(':');
+                if ("violation".contentEquals(text)) {
+                    readViolations();
+                } else {
+                    skipValue();
+                }
+            } while (consume(','));
+            expect('}');
+        }
+    }
+
+    private void readViolations() throws IOException {
+        if (peek() != '[') {
+            skipValue();
+            return;
+        }
+        position++;
+        if (!consume(']')) {
+            do {
+                readViolation();
+            } while (consume(','));
+            expect(']');
+        }
+    }
+
+    private void readViolation() throws IOException {
+        String path = null;
+        String ruleKey = null;
+        String message = null;
+        Integer line = null;
+        int priority = DEFAULT_PRIORITY;
+
+        expect('{');
+        if (!consume('}')) {
+            do {
+                readText(true);
+                expect(':');
+                if ("path".contentEquals(text)) {
+                    path = readPath();
+                } else if ("rule".contentEquals(text)) {
+                    ruleKey = readNullableText();
+                } else if ("startLine".contentEquals(text)) {
+                    line = readNullableInt();
+                } else if ("priority".contentEquals(text)) {
+                    final Integer value = readNullableInt();
+                    priority = value == null ? DEFAULT_PRIORITY : value;
+                } else if ("message".contentEquals(text)) {
+                    message = readNullableText();
+                } else {
+                    skipValue();
+                }
+            } while (consume(','));
+            expect('}');
+        }
+        recordViolation(path, ruleKey, priority, line, message);
+    }
+
+    private void recordViolation(final String path, final String ruleKey,
+            final int priority, final Integer line, final String message) {
+        if (null == path || null == ruleKey) {
+            return;
+        }
+        final Rule rule = ruleCache.get(ruleKey, priority);
+        if (null == rule) {
+            return;
+        }
+        final org.sonar.api.resources.File resource = resourceResolver
+                .resolve(path, project, context);
+        if (null == resource) {
+            return;
+        }
+        final Violation violation = Violation.create(rule, resource);
+        violation.setLineId(line);
+        violation.setMessage(message);
+        violationHandler.handle(violation);
+    }
+
+    /**
+     * The violations of a file follow each other, so its path is only turned
+     * into a String once.
+     */
+    private String readPath() throws IOException {
+        if (peek() == 'n') {
+            skipScalar();
+            return null;
+        }
+        readText(true);
+        if (null == lastPath || !lastPath.contentEquals(text)) {
+            lastPath = text.toString();
+        }
+        return lastPath;
+    }
+
+    private String readNullableText() throws IOException {
+        if (peek() == 'n') {
+            skipScalar();
+            return null;
+        }
+        readText(true);
+        return text.toString();
+    }
+
+    private Integer readNullableInt() throws IOException {
+        int c = peek();
+        if (c == 'n') {
+            skipScalar();
+            return null;
+        }
+        final boolean negative = c == '-';
+        if (negative) {
+            position++;
+        }
+        int value = 0;
+        int digits = 0;
+        while ((c = current()) >= '0' && c <= '9') {
+            value = value * 10 + c - '0';
+            digits++;
+            position++;
+        }
+        if (digits == 0) {
+            throw syntaxError("number expected");
+        }
+        // fraction and exponent of numbers which are not integers
+        while (isScalarPart(current())) {
+            position++;
+        }
+        return negative ? -value : value;
+    }
+
+    private void skipValue() throws IOException {
+        switch (peek()) {
+        case '{':
+            position++;
+            if (!consume('}')) {
+                do {
+                    readText(false);
+                    expect(':');
+                    skipValue();
+                } while (consume(','));
+                expect('}');
+            }
+            break;
+        case '[':
+            position++;
+            if (!consume(']')) {
+                do {
+                    skipValue();
+                } while (consume(','));
+                expect(']');
+            }
+            break;
+        case '"':
+            readText(false);
+            break;
+        default:
+            skipScalar();
+        }
+    }
+
+    /**
+     * Skips a number, true, false or null.
+     */
+    private void skipScalar() throws IOException {
+        if (!isScalarPart(peek())) {
+            throw syntaxError("value expected");
+        }
+        while (isScalarPart(current())) {
+            position++;
+        }
+    }
+
+    private static boolean isScalarPart(final int c) {
+        return c >= 'a' && c <= 'z' || c >= '0' && c <= '9' || c == '-'
+                || c == '+' || c == '.' || c == 'E';
+    }
+
+    /**
+     * Reads a string into {@link #text}, or only skips it when it is not
+     * kept.
+     */
+    private void readText(final boolean keep) throws IOException {
+        expect('"');
+        text.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) {
+                throw syntaxError("unterminated string");
+            }
+            final int start = position;
+            while (position < limit && buffer[position] != '"'
+                    && buffer[position] != '\\') {
+                position++;
+            }
+            if (keep) {
+                text.append(buffer, start, position - start);
+            }
+            if (position < limit) {
+                if (buffer[position++] == '"') {
+                    return;
+                }
+                readEscape(keep);
+            }
+        }
+    }
+
+    private void readEscape(final boolean keep) throws IOException {
+        final int c = read();
+        char unescaped;
+        switch (c) {
+        case 'b':
+            unescaped = '\b';
+            break;
+        case 'f':
+            unescaped = '\f';
+            break;
+        case 'n':
+            unescaped = '\n';
+            break;
+        case 'r':
+            unescaped = '\r';
+            break;
+        case 't':
+            unescaped = '\t';
+            break;
+        case 'u':
+            unescaped = (char) (hexDigit() << 12 | hexDigit() << 8
+                    | hexDigit() << 4 | hexDigit());
+            break;
+        case -1:
+            throw syntaxError("unterminated string");
+        default:
+            unescaped = (char) c;
+        }
+        if (keep) {
+            text.append(unescaped);
+        }
+    }
+
+    private int hexDigit() throws IOException {
+        final int digit = Character.digit(read(), 16);
+        if (digit < 0) {
+            throw syntaxError("hexadecimal digit expected");
+        }
+        return digit;
+    }
+
+    private void expect(final char c) throws IOException {
+        if (!consume(c)) {
+            throw syntaxError("'" + c + "' expected");
+        }
+    }
+
+    private boolean consume(final char c) throws IOException {
+        if (peek() == c) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return the next character which is not a whitespace, without
+     *         consuming it, or -1 at the end of the report.
+     */
+    private int peek() throws IOException {
+        int c = current();
+        while (c == ' ' || c == '\n' || c == '\r' || c == '\t') {
+            position++;
+            c = current();
+        }
+        return c;
+    }
+
+    /**
+     * @return the next character, without consuming it, or -1 at the end of
+     *         the report.
+     */
+    private int current() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position];
+    }
+
+    private int read() throws IOException {
+        final int c = current();
+        if (c != -1) {
+            position++;
+        }
+        return c;
+    }
+
+    private boolean fill() throws IOException {
+        offset += limit;
+        position = 0;
+        limit = Math.max(0, reader.read(buffer, 0, buffer.length));
+        return limit > 0;
+    }
+
+    private IOException syntaxError(final String message) {
+        return new IOException("Invalid OCLint JSON report at character "
+                + (offset + position) + ": " + message);
+    }
+
+}
@@ -19,57 +19,189 @@
  */
 package org.sonar.plugins.objectivec;
 
+import java.io.BufferedInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.util.ArrayList;
 import java.util.Collection;
 
 import javax.xml.stream.XMLStreamException;
 
+import org.apache.commons.lang.CharEncoding;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.SensorContext;
+import org.sonar.api.profiles.RulesProfile;
 import org.sonar.api.resources.Project;
 import org.sonar.api.rules.Violation;
 import org.sonar.api.utils.StaxParser;
 
 final class OCLintParser {
+    public static final String FORMAT_AUTO = "auto";
+    public static final String FORMAT_XML = "xml";
+    public static final String FORMAT_JSON = "json";
+    // enough for a BOM and the indentation preceding the first character
+    private static final int DETECTION_LIMIT = 1024;
+
+    /**
+     * Receives each violation as soon as it is read from the report.
+     */
+    public interface ViolationHandler {
+
+        void handle(Violation violation);
+
+    }
+
     private final Project project;
     private final SensorContext context;
+    private final ObjectiveCResourceResolver resourceResolver;
+    private final RulesProfile profile;
+    private final String format;
 
     public OCLintParser(final Project p, final SensorContext c) {
+        this(p, c, new ObjectiveCResourceResolver());
+    }
+
+    public OCLintParser(final Project p, final SensorContext c,
+            final ObjectiveCResourceResolver resolver) {
+        this(p, c, resolver, null);
+    }
+
+    /**
+     * @param rulesProfile
+     *            profile used to drop violations of inactive rules, every
+     *            rule is kept when null.
+     */
+    public OCLintParser(final Project p, final SensorContext c,
+            final ObjectiveCResourceResolver resolver,
+            final RulesProfile rulesProfile) {
+        this(p, c, resolver, rulesProfile, FORMAT_AUTO);
+    }
+
+    /**
+     * @param reportFormat
+     *            {@link #FORMAT_XML} for the PMD reports of OCLint,
+     *            {@link #FORMAT_JSON} for its JSON reports, or
+     *            {@link #FORMAT_AUTO} to tell them apart by their first
+     *            character.
+     */
+    public OCLintParser(final Project p, final SensorContext c,
+            final ObjectiveCResourceResolver resolver,
+            final RulesProfile rulesProfile, final String reportFormat) {
         project = p;
         context = c;
+        resourceResolver = resolver;
+        profile = rulesProfile;
+        format = reportFormat;
     }
 
     public Collection<Violation> parseReport(final File file) {
-        Collection<Violation> result;
+        final Collection<Violation> violations = new ArrayList<Violation>();
+        parseReport(file, collector(violations));
+        return violations;
+    }
+
+    public Collection<Violation> parseReport(final InputStream inputStream) {
+        final Collection<Violation> violations = new ArrayList<Violation>();
+        parseReport(inputStream, collector(violations));
+        LoggerFactory.getLogger(getClass()).info("Reporting {} violations.",
+                violations.size());
+        return violations;
+    }
+
+    /**
+     * Streams the violations of the report to the handler, without keeping
+     * any of them.
+     */
+    public void parseReport(final File file, final ViolationHandler handler) {
         try {
-            final InputStream reportStream = new FileInputStream(file);
-            result = parseReport(reportStream);
-            reportStream.close();
+            final InputStream reportStream = ReportStreams.open(file);
+            try {
+                parseReport(reportStream, handler);
+            } finally {
+                reportStream.close();
+            }
         } catch (final IOException e) {
             LoggerFactory.getLogger(getClass()).error(
                     "Error processing file named {}", file, e);
-            result = new ArrayList<Violation>();
         }
-        return result;
     }
 
-    public Collection<Violation> parseReport(final InputStream inputStream) {
-        final Collection<Violation> violations = new ArrayList<Violation>();
+    public void parseReport(final InputStream inputStream,
+            final ViolationHandler handler) {
+        final InputStream reportStream = inputStream.markSupported() ? inputStream
+                : new BufferedInputStream(inputStream);
+        try {
+            if (isJSON(reportStream)) {
+                parseJSONReport(reportStream, handler);
+            } else {
+                parseXMLReport(reportStream, handler);
+            }
+        } catch (final IOException e) {
+            LoggerFactory.getLogger(getClass()).error(
+                    "Error while reading OCLint report.", e);
+        }
+    }
+
+    private void parseXMLReport(final InputStream inputStream,
+            final ViolationHandler handler) {
         try {
             final StaxParser parser = new StaxParser(
-                    new OCLintXMLStreamHandler(violations, project, context));
+                    new OCLintXMLStreamHandler(handler, project, context,
+                            resourceResolver, new OCLintRuleCache(profile)));
             parser.parse(inputStream);
-            LoggerFactory.getLogger(getClass()).error(
-                    "Reporting {} violations.", violations.size());
         } catch (final XMLStreamException e) {
             LoggerFactory.getLogger(getClass()).error(
                     "Error while parsing XML stream.", e);
         }
-        return violations;
+    }
+
+    private void parseJSONReport(final InputStream inputStream,
+            final ViolationHandler handler) throws IOException {
+        new OCLintJSONReportReader(handler, project, context,
+                resourceResolver, new OCLintRuleCache(profile))
+                .read(new InputStreamReader(inputStream, CharEncoding.UTF_8));
+    }
+
+    private boolean isJSON(final InputStream inputStream) throws IOException {
+        if (FORMAT_JSON.equals(format)) {
+            return true;
+        }
+        if (FORMAT_XML.equals(format)) {
+            return false;
+        }
+        inputStream.mark(DETECTION_LIMIT);
+        try {
+            return firstSignificantByte(inputStream) == '{';
+        } finally {
+            inputStream.reset();
+        }
+    }
+
+    /**
+     * @return the first byte which is neither a whitespace nor part of an
+     *         UTF-8 BOM, -1 when there is none.
+     */
+    private static int firstSignificantByte(final InputStream inputStream)
+            throws IOException {
+        for (int i = 0; i < DETECTION_LIMIT; i++) {
+            final int b = inputStream.read();
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n' && b != 0xEF
+                    && b != 0xBB && b != 0xBF) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    private static ViolationHandler collector(
+            final Collection<Violation> violations) {
+        return new ViolationHandler() {
+            public void handle(final Violation violation) {
+                violations.add(violation);
+            }
+        };
     }
 
 }
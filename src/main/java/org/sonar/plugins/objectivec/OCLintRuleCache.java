@@ -0,0 +1,93 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.rules.ActiveRule;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.RulePriority;
+
+/**
+ * Resolves each OCLint rule key once per report and hands out the same
+ * {@link Rule} for all of its violations. When a profile is known, the rule
+ * is the one activated in the profile and keys of inactive rules resolve to
+ * null, as Sonar would drop their violations anyway. Without a profile every
+ * key is accepted and its rule takes the severity of its first violation.
+ * Not thread safe: use one cache per report being parsed.
+ */
+final class OCLintRuleCache {
+    private static final int PMD_MINIMUM_PRIORITY = 5;
+    // PMD Priorities are 1, 2, 3, 4, 5 RulePriority[0] is INFO
+    private static final RulePriority[] PRIORITIES = RulePriority.values();
+    private static final Rule INACTIVE = Rule.create();
+
+    private final RulesProfile profile;
+    private final Map<String, Rule> rules = new HashMap<String, Rule>();
+
+    public OCLintRuleCache() {
+        this(null);
+    }
+
+    public OCLintRuleCache(final RulesProfile p) {
+        profile = p;
+    }
+
+    /**
+     * @param ruleKey
+     *            OCLint rule key as found in the report.
+     * @param priority
+     *            PMD priority of the violation, only read the first time the
+     *            key is met.
+     * @return the rule to report the violation against, null when the rule
+     *         is not active.
+     */
+    public Rule get(final String ruleKey, final String priority) {
+        final Rule rule = rules.get(ruleKey);
+        if (null == rule) {
+            return get(ruleKey, Integer.parseInt(priority));
+        }
+        return rule == INACTIVE ? null : rule;
+    }
+
+    public Rule get(final String ruleKey, final int priority) {
+        Rule rule = rules.get(ruleKey);
+        if (null == rule) {
+            rule = resolve(ruleKey, priority);
+            rules.put(ruleKey, rule);
+        }
+        return rule == INACTIVE ? null : rule;
+    }
+
+    private Rule resolve(final String ruleKey, final int priority) {
+        if (null != profile) {
+            final ActiveRule activeRule = profile.getActiveRule(
+                    OCLintRuleRepository.REPOSITORY_KEY, ruleKey);
+            return null == activeRule ? INACTIVE : activeRule.getRule();
+        }
+        final Rule rule = Rule.create(OCLintRuleRepository.REPOSITORY_KEY,
+                ruleKey);
+        rule.setSeverity(PRIORITIES[PMD_MINIMUM_PRIORITY - priority]);
+        return rule;
+    }
+
+}
@@ -0,0 +1,118 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.CharEncoding;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.RulePriority;
+
+/**
+ * Binary form of the OCLint rules. The text catalog produced by OCLint is
+ * parsed by {@link OCLintRuleParser} once, during the build, and written to a
+ * resource that the server reads back without any text processing. The
+ * build-only OCLintRuleCatalogCompiler of src/build/java does the writing, so
+ * that it does not ship in the plugin.
+ */
+public final class OCLintRuleCatalog {
+    static final int MAGIC = 0x4F434C52;
+    static final int FORMAT_VERSION = 1;
+    private static final int NONE = -1;
+
+    private OCLintRuleCatalog() {
+    }
+
+    static void write(final List<Rule> rules, final OutputStream stream)
+            throws IOException {
+        final DataOutputStream output = new DataOutputStream(stream);
+        output.writeInt(MAGIC);
+        output.writeInt(FORMAT_VERSION);
+        output.writeInt(rules.size());
+        for (final Rule rule : rules) {
+            writeText(output, rule.getKey());
+            writeText(output, rule.getName());
+            writeText(output, rule.getDescription());
+            output.writeByte(rule.getSeverity() == null ? NONE : rule
+                    .getSeverity().ordinal());
+        }
+        output.flush();
+    }
+
+    /**
+     * Reads the whole catalog at once, then decodes the rules from memory.
+     */
+    public static List<Rule> read(final InputStream stream) throws IOException {
+        final DataInputStream input = new DataInputStream(
+                new ByteArrayInputStream(IOUtils.toByteArray(stream)));
+        if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) {
+            throw new IOException("Not an OCLint rule catalog of version "
+                    + FORMAT_VERSION);
+        }
+        final int size = input.readInt();
+        final List<Rule> rules = new ArrayList<Rule>(size);
+        for (int i = 0; i < size; i++) {
+            final Rule rule = Rule.create();
+            rule.setKey(readText(input));
+            rule.setName(readText(input));
+            rule.setDescription(readText(input));
+            final int severity = input.readByte();
+            if (severity != NONE) {
+                rule.setSeverity(RulePriority.values()[severity]);
+            }
+            rules.add(rule);
+        }
+        return rules;
+    }
+
+    /**
+     * Unlike {@link DataOutputStream#writeUTF}, not limited to 64 KB.
+     */
+    private static void writeText(final DataOutputStream output,
+            final String text) throws IOException {
+        if (text == null) {
+            output.writeInt(NONE);
+        } else {
+            final byte[] bytes = text.getBytes(CharEncoding.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+    }
+
+    private static String readText(final DataInputStream input)
+            throws IOException {
+        final int length = input.readInt();
+        if (length == NONE) {
+            return null;
+        }
+        final byte[] bytes = new byte[length];
+        input.readFully(bytes);
+        return new String(bytes, CharEncoding.UTF_8);
+    }
+
+}
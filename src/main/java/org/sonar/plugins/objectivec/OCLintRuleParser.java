@@ -23,8 +23,9 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.ServerComponent;
@@ -35,66 +36,91 @@ import org.sonar.api.rules.RulePriority;
  * Largely copied from AndroidLint's equivalent class whose authors are Stephane
  * Nicolas and Jerome Van Der Linden according to the class Javadoc.
  *
+ * Reads the catalog one line at a time. The description of the rule being
+ * read is kept in a {@link StringBuilder} and only turned into a String once
+ * the next rule starts, so that parsing time is linear in the size of the
+ * catalog.
  */
 final class OCLintRuleParser implements ServerComponent {
 
     private static final int OCLINT_MINIMUM_PRIORITY = 3;
+    private static final String LINE_BREAK = "<br>";
+    private static final Pattern RULE_HEADER = Pattern.compile("-{4,}");
     private static final Logger LOGGER = LoggerFactory
             .getLogger(OCLintRuleParser.class);
 
     public List<Rule> parse(final BufferedReader reader) throws IOException {
         final List<Rule> rules = new ArrayList<Rule>();
-
-        final List<String> listLines = IOUtils.readLines(reader);
+        final Matcher ruleHeader = RULE_HEADER.matcher("");
 
         String previousLine = null;
         Rule rule = null;
+        StringBuilder description = null;
+        // start of the last line appended to the description, -1 if the
+        // previous line was not appended
+        int previousLineStart = -1;
         boolean inDescription = false;
-        for (String line : listLines) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            int lineStart = -1;
             if (isLineIgnored(line)) {
                 inDescription = false;
-            } else if (line.matches("[\\-]{4,}.*")) {
+            } else if (ruleHeader.reset(line).lookingAt()) {
                 LOGGER.debug("Rule found : {}", previousLine);
 
                 // remove the rule name from the description of the previous
                 // rule
                 if (rule != null) {
-                    final int index = rule.getDescription().lastIndexOf(
-                            previousLine);
-                    if (index > 0) {
-                        rule.setDescription(rule.getDescription().substring(0,
-                                index));
+                    if (previousLineStart > 0) {
+                        description.setLength(previousLineStart);
                     }
+                    setDescription(rule, description);
                 }
 
                 rule = Rule.create();
                 rules.add(rule);
                 rule.setName(previousLine);
                 rule.setKey(previousLine);
-            } else if (line.matches("Summary:.*")) {
+                description = null;
+            } else if (line.startsWith("Summary:")) {
                 inDescription = true;
-                rule.setDescription(line.substring(line.indexOf(':') + 1));
-            } else if (line.matches("Category:.*")) {
+                description = new StringBuilder(line.substring(line
+                        .indexOf(':') + 1));
+            } else if (line.startsWith("Category:")) {
                 inDescription = true;
-            } else if (line.matches("Severity:.*")) {
+            } else if (line.startsWith("Severity:")) {
                 inDescription = false;
                 final String severity = line.substring("Severity: ".length());
                 // Rules are priority 1, 2 or 3 in OCLint files.
                 rule.setSeverity(RulePriority.values()[OCLINT_MINIMUM_PRIORITY
                         - Integer.valueOf(severity)]);
-            } else {
-                if (inDescription) {
-                    line = ruleDescriptionLink(line);
-                    rule.setDescription(rule.getDescription() + "<br>" + line);
+            } else if (inDescription) {
+                if (description == null) {
+                    description = new StringBuilder();
                 }
+                line = ruleDescriptionLink(line);
+                description.append(LINE_BREAK);
+                lineStart = description.length();
+                description.append(line);
             }
             previousLine = line;
+            previousLineStart = lineStart;
+        }
+        if (rule != null) {
+            setDescription(rule, description);
         }
         return rules;
     }
 
-    private boolean isLineIgnored(String line) {
-        return line.matches("\\=.*") || line.matches("Priority:.*");
+    private static void setDescription(final Rule rule,
+            final StringBuilder description) {
+        if (description != null) {
+            rule.setDescription(description.toString());
+        }
+    }
+
+    private boolean isLineIgnored(final String line) {
+        return line.startsWith("=") || line.startsWith("Priority:");
     }
 
     private String ruleDescriptionLink(final String line) {
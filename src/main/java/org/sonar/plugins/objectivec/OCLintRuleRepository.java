@@ -20,11 +20,21 @@
 package org.sonar.plugins.objectivec;
 
 import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.lang.CharEncoding;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.config.Settings;
 import org.sonar.api.rules.Rule;
 import org.sonar.api.rules.RuleRepository;
 import org.sonar.api.utils.SonarException;
@@ -35,26 +45,107 @@ import com.google.common.io.Closeables;
 public final class OCLintRuleRepository extends RuleRepository {
     public static final String REPOSITORY_KEY = "OCLint";
     public static final String REPOSITORY_NAME = REPOSITORY_KEY;
+    public static final String CATALOGS_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
+            + ".oclint.ruleCatalogs";
 
-    private static final String RULES_FILE = "/org/sonar/plugins/oclint/rules.txt";
+    /**
+     * Compiled from src/main/oclint/rules.txt by the build, see
+     * {@link OCLintRuleCatalog}.
+     */
+    private static final String RULES_FILE = "/org/sonar/plugins/oclint/rules.bin";
 
-    private final OCLintRuleParser ocLintRuleParser = new OCLintRuleParser();
+    private final Settings conf;
 
     public OCLintRuleRepository() {
+        this(null);
+    }
+
+    public OCLintRuleRepository(final Settings config) {
         super(OCLintRuleRepository.REPOSITORY_KEY, ObjectiveC.KEY);
         setName(OCLintRuleRepository.REPOSITORY_NAME);
+        conf = config;
     }
 
+    /**
+     * The rules of the catalogs configured with {@link #CATALOGS_KEY} come
+     * after the default ones. A rule whose key is already defined is
+     * ignored.
+     */
     @Override
     public List<Rule> createRules() {
-        BufferedReader reader = null;
+        final List<Rule> rules = new ArrayList<Rule>(defaultRules());
+        final Set<String> keys = new HashSet<String>();
+        for (final Rule rule : rules) {
+            keys.add(rule.getKey());
+        }
+        for (final File catalog : additionalCatalogs()) {
+            for (final Rule rule : parseCatalog(catalog)) {
+                if (keys.add(rule.getKey())) {
+                    rules.add(rule);
+                } else {
+                    LoggerFactory.getLogger(getClass()).warn(
+                            "OCLint rule {} of {} is already defined",
+                            rule.getKey(), catalog);
+                }
+            }
+        }
+        return rules;
+    }
+
+    private List<Rule> defaultRules() {
+        final InputStream input = getClass().getResourceAsStream(RULES_FILE);
+        if (input == null) {
+            throw new SonarException("Missing the OCLint rule catalog "
+                    + RULES_FILE);
+        }
         try {
-            reader = new BufferedReader(new InputStreamReader(getClass()
-                    .getResourceAsStream(RULES_FILE), CharEncoding.UTF_8));
-            return ocLintRuleParser.parse(reader);
+            return OCLintRuleCatalog.read(input);
         } catch (final IOException e) {
             throw new SonarException("Fail to load the default OCLint rules.",
                     e);
+        } finally {
+            Closeables.closeQuietly(input);
+        }
+    }
+
+    /**
+     * @return the text catalogs configured, directories standing for the .txt
+     *         files they contain.
+     */
+    private List<File> additionalCatalogs() {
+        final List<File> catalogs = new ArrayList<File>();
+        if (conf == null) {
+            return catalogs;
+        }
+        for (final String path : conf.getStringArray(CATALOGS_KEY)) {
+            final File catalog = new File(path.trim());
+            if (catalog.isDirectory()) {
+                final File[] files = catalog.listFiles(new FilenameFilter() {
+                    public boolean accept(final File dir, final String name) {
+                        return name.endsWith(".txt");
+                    }
+                });
+                Arrays.sort(files);
+                catalogs.addAll(Arrays.asList(files));
+            } else if (catalog.isFile()) {
+                catalogs.add(catalog);
+            } else {
+                LoggerFactory.getLogger(getClass()).warn(
+                        "OCLint rule catalog {} not found", catalog);
+            }
+        }
+        return catalogs;
+    }
+
+    private List<Rule> parseCatalog(final File catalog) {
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(
+                    new FileInputStream(catalog), CharEncoding.UTF_8));
+            return new OCLintRuleParser().parse(reader);
+        } catch (final IOException e) {
+            throw new SonarException("Fail to load the OCLint rules of "
+                    + catalog, e);
         } finally {
             Closeables.closeQuietly(reader);
         }
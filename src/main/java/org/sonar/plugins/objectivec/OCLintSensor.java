@@ -20,12 +20,21 @@
 package org.sonar.plugins.objectivec;
 
 import java.io.File;
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.config.Settings;
+import org.sonar.api.profiles.RulesProfile;
 import org.sonar.api.resources.Project;
 import org.sonar.api.rules.Violation;
 import org.sonar.plugins.objectivec.core.ObjectiveC;
@@ -34,14 +43,43 @@ public final class OCLintSensor implements Sensor {
     public static final String REPORT_PATH_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
             + ".oclint.report";
     public static final String DEFAULT_REPORT_PATH = "oclint/oclint.xml";
+    public static final String FORMAT_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
+            + ".oclint.reportFormat";
+    public static final String DEFAULT_FORMAT = OCLintParser.FORMAT_AUTO;
+    public static final String THREADS_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
+            + ".oclint.threads";
+    public static final String DEFAULT_THREADS = "1";
     private final Settings conf;
+    private final ReportFilesFinder reportFilesFinder;
+    private final ObjectiveCResourceResolver resourceResolver;
+    private final RulesProfile profile;
 
     public OCLintSensor() {
         this(null);
     }
 
     public OCLintSensor(final Settings config) {
+        this(config, new ObjectiveCResourceResolver());
+    }
+
+    public OCLintSensor(final Settings config,
+            final ObjectiveCResourceResolver resolver) {
+        this(config, null, resolver);
+    }
+
+    public OCLintSensor(final Settings config, final RulesProfile rulesProfile,
+            final ObjectiveCResourceResolver resolver) {
+        this(config, rulesProfile, resolver, new ReportFilesScanner(config));
+    }
+
+    public OCLintSensor(final Settings config, final RulesProfile rulesProfile,
+            final ObjectiveCResourceResolver resolver,
+            final ReportFilesScanner scanner) {
         conf = config;
+        profile = rulesProfile;
+        resourceResolver = resolver;
+        reportFilesFinder = new ReportFilesFinder(config, REPORT_PATH_KEY,
+                DEFAULT_REPORT_PATH, scanner);
     }
 
     public boolean shouldExecuteOnProject(final Project project) {
@@ -49,35 +87,110 @@ public final class OCLintSensor implements Sensor {
     }
 
     public void analyse(final Project project, final SensorContext context) {
+        final Map<String, Long> pathMatches = resourceResolver.getPathMapper()
+                .getMatchCounts();
         final String projectBaseDir = project.getFileSystem().getBasedir()
                 .getPath();
-        final OCLintParser parser = new OCLintParser(project, context);
-        saveViolations(parseReportIn(projectBaseDir, parser), context);
-
+        final OCLintParser parser = new OCLintParser(project, context,
+                resourceResolver, profile, format());
+        LoggerFactory.getLogger(getClass()).info("Saved {} OCLint violations",
+                parseReportsIn(projectBaseDir, parser, context));
+        resourceResolver.getPathMapper().logMatchCounts("OCLint",
+                pathMatches);
     }
 
-    private void saveViolations(final Collection<Violation> violations,
-            final SensorContext context) {
-        for (final Violation violation : violations) {
-            context.saveViolation(violation);
+    /**
+     * Parses the reports of several OCLint runs, such as one per target,
+     * concurrently on a bounded pool. A violation found more than once, in
+     * one report or in several, is only saved once.
+     *
+     * @return the number of violations saved.
+     */
+    private long parseReportsIn(final String baseDir,
+            final OCLintParser parser, final SensorContext context) {
+        final List<File> reports = reportFilesFinder.reportsIn(baseDir);
+        final ViolationKeySet violationKeys = new ViolationKeySet();
+        final int threads = Math.min(threads(), reports.size());
+
+        long saved = 0;
+        if (threads <= 1) {
+            for (final File report : reports) {
+                saved += parseReport(report, parser, context, violationKeys);
+            }
+        } else {
+            saved = parseInParallel(reports, parser, context, violationKeys,
+                    threads);
         }
+        return saved;
     }
 
-    private Collection<Violation> parseReportIn(final String baseDir,
-            final OCLintParser parser) {
-        final StringBuilder reportFileName = new StringBuilder(baseDir);
-        reportFileName.append("/").append(reportPath());
+    private long parseInParallel(final List<File> reports,
+            final OCLintParser parser, final SensorContext context,
+            final ViolationKeySet violationKeys, final int threads) {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<Long>> futures = new ArrayList<Future<Long>>();
+            for (final File report : reports) {
+                futures.add(executor.submit(new Callable<Long>() {
+                    public Long call() {
+                        return parseReport(report, parser, context,
+                                violationKeys);
+                    }
+                }));
+            }
+            long saved = 0;
+            for (final Future<Long> future : futures) {
+                saved += get(future);
+            }
+            return saved;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
 
+    private long parseReport(final File report, final OCLintParser parser,
+            final SensorContext context, final ViolationKeySet violationKeys) {
         LoggerFactory.getLogger(getClass()).info("Processing OCLint report {}",
-                reportFileName);
-        return parser.parseReport(new File(reportFileName.toString()));
+                report);
+        final ViolationBatcher batcher = new ViolationBatcher(context);
+        parser.parseReport(report, new OCLintParser.ViolationHandler() {
+            public void handle(final Violation violation) {
+                if (violationKeys.add(violation)) {
+                    batcher.handle(violation);
+                }
+            }
+        });
+        batcher.flush();
+        return batcher.getSaved();
     }
 
-    private String reportPath() {
-        String reportPath = conf.getString(REPORT_PATH_KEY);
-        if (reportPath == null) {
-            reportPath = DEFAULT_REPORT_PATH;
+    private static long get(final Future<Long> future) {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    "Interrupted while parsing OCLint reports.", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(
+                    "Unable to parse OCLint reports.", e.getCause());
         }
-        return reportPath;
+    }
+
+    private String format() {
+        String format = conf == null ? null : conf.getString(FORMAT_KEY);
+        if (format == null) {
+            format = DEFAULT_FORMAT;
+        }
+        return format.trim().toLowerCase(Locale.ENGLISH);
+    }
+
+    private int threads() {
+        int threads = conf == null || !conf.hasKey(THREADS_KEY) ? Integer
+                .parseInt(DEFAULT_THREADS) : conf.getInt(THREADS_KEY);
+        return Math.max(1, threads);
     }
 }
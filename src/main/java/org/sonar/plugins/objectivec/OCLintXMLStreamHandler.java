@@ -19,7 +19,6 @@
  */
 package org.sonar.plugins.objectivec;
 
-import java.io.File;
 import java.util.Collection;
 
 import javax.xml.stream.XMLStreamException;
@@ -30,21 +29,46 @@ import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.resources.Project;
 import org.sonar.api.rules.Rule;
-import org.sonar.api.rules.RulePriority;
 import org.sonar.api.rules.Violation;
 import org.sonar.api.utils.StaxParser.XmlStreamHandler;
 
 final class OCLintXMLStreamHandler implements XmlStreamHandler {
-    private static final int PMD_MINIMUM_PRIORITY = 5;
-    private final Collection<Violation> foundViolations;
+    private final OCLintParser.ViolationHandler violationHandler;
     private final Project project;
     private final SensorContext context;
+    private final ObjectiveCResourceResolver resourceResolver;
+    private final OCLintRuleCache ruleCache;
 
     public OCLintXMLStreamHandler(final Collection<Violation> violations,
             final Project p, final SensorContext c) {
-        foundViolations = violations;
+        this(violations, p, c, new ObjectiveCResourceResolver());
+    }
+
+    public OCLintXMLStreamHandler(final Collection<Violation> violations,
+            final Project p, final SensorContext c,
+            final ObjectiveCResourceResolver resolver) {
+        this(new OCLintParser.ViolationHandler() {
+            public void handle(final Violation violation) {
+                violations.add(violation);
+            }
+        }, p, c, resolver);
+    }
+
+    public OCLintXMLStreamHandler(final OCLintParser.ViolationHandler handler,
+            final Project p, final SensorContext c,
+            final ObjectiveCResourceResolver resolver) {
+        this(handler, p, c, resolver, new OCLintRuleCache());
+    }
+
+    public OCLintXMLStreamHandler(final OCLintParser.ViolationHandler handler,
+            final Project p, final SensorContext c,
+            final ObjectiveCResourceResolver resolver,
+            final OCLintRuleCache rules) {
+        violationHandler = handler;
         project = p;
         context = c;
+        resourceResolver = resolver;
+        ruleCache = rules;
     }
 
     public void stream(final SMHierarchicCursor rootCursor)
@@ -62,19 +86,15 @@ final class OCLintXMLStreamHandler implements XmlStreamHandler {
         final String filePath = file.getAttrValue("name");
         LoggerFactory.getLogger(getClass()).debug(
                 "Collection violations for {}", filePath);
-        final org.sonar.api.resources.File resource = findResource(filePath);
-        if (fileExists(resource)) {
+        final org.sonar.api.resources.File resource = resourceResolver
+                .resolve(filePath, project, context);
+        if (resource != null) {
             LoggerFactory.getLogger(getClass()).debug(
                     "File {} was found in the project.", filePath);
             collectFileViolations(resource, file);
         }
     }
 
-    private org.sonar.api.resources.File findResource(final String filePath) {
-        return org.sonar.api.resources.File.fromIOFile(new File(filePath),
-                project);
-    }
-
     private void collectFileViolations(
             final org.sonar.api.resources.File resource,
             final SMInputCursor file) throws XMLStreamException {
@@ -87,24 +107,17 @@ final class OCLintXMLStreamHandler implements XmlStreamHandler {
 
     private void recordViolation(final org.sonar.api.resources.File resource,
             final SMInputCursor line) throws XMLStreamException {
-        final Rule rule = Rule.create();
+        final Rule rule = ruleCache.get(line.getAttrValue("rule"),
+                line.getAttrValue("priority"));
+        if (null == rule) {
+            return;
+        }
         final Violation violation = Violation.create(rule, resource);
-
-        // PMD Priorities are 1, 2, 3, 4, 5 RulePriority[0] is INFO
-        rule.setSeverity(RulePriority.values()[PMD_MINIMUM_PRIORITY
-                - Integer.valueOf(line.getAttrValue("priority"))]);
-        rule.setKey(line.getAttrValue("rule"));
-        rule.setRepositoryKey(OCLintRuleRepository.REPOSITORY_KEY);
-
         violation.setLineId(Integer.valueOf(line.getAttrValue("beginline")));
 
         violation.setMessage(line.getElemStringValue());
 
-        foundViolations.add(violation);
-    }
-
-    private boolean fileExists(final org.sonar.api.resources.File file) {
-        return context.getResource(file) != null;
+        violationHandler.handle(violation);
     }
 
 }
@@ -20,14 +20,19 @@
 package org.sonar.plugins.objectivec;
 
 import java.io.File;
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.config.Settings;
-import org.sonar.api.measures.CoverageMeasuresBuilder;
+import org.sonar.api.resources.InputFileUtils;
 import org.sonar.api.resources.Project;
 import org.sonar.plugins.objectivec.core.ObjectiveC;
 
@@ -35,17 +40,34 @@ public final class ObjectiveCCoverageSensor implements Sensor {
     public static final String REPORT_PATTERN_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
             + ".coverage.reportPattern";
     public static final String DEFAULT_REPORT_PATTERN = "coverage-reports/coverage-*.xml";
+    public static final String THREADS_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
+            + ".coverage.threads";
+    public static final String DEFAULT_THREADS = "1";
 
+    private final Settings conf;
     private final ReportFilesFinder reportFilesFinder;
-    private final CoberturaParser parser = new CoberturaParser();
+    private final ObjectiveCResourceResolver resourceResolver;
 
     public ObjectiveCCoverageSensor() {
         this(null);
     }
 
     public ObjectiveCCoverageSensor(final Settings config) {
+        this(config, new ObjectiveCResourceResolver());
+    }
+
+    public ObjectiveCCoverageSensor(final Settings config,
+            final ObjectiveCResourceResolver resolver) {
+        this(config, resolver, new ReportFilesScanner(config));
+    }
+
+    public ObjectiveCCoverageSensor(final Settings config,
+            final ObjectiveCResourceResolver resolver,
+            final ReportFilesScanner scanner) {
+        conf = config;
+        resourceResolver = resolver;
         reportFilesFinder = new ReportFilesFinder(config, REPORT_PATTERN_KEY,
-                DEFAULT_REPORT_PATTERN);
+                DEFAULT_REPORT_PATTERN, scanner);
     }
 
     public boolean shouldExecuteOnProject(final Project project) {
@@ -53,25 +75,92 @@ public final class ObjectiveCCoverageSensor implements Sensor {
     }
 
     public void analyse(final Project project, final SensorContext context) {
+        final Map<String, Long> pathMatches = resourceResolver.getPathMapper()
+                .getMatchCounts();
         final CoverageMeasuresPersistor measuresPersistor = new CoverageMeasuresPersistor(
-                project, context);
+                project, context, resourceResolver);
         final String projectBaseDir = project.getFileSystem().getBasedir()
                 .getPath();
 
-        measuresPersistor.saveMeasures(parseReportsIn(projectBaseDir));
+        final CoberturaParser parser = new CoberturaParser(new SourceFileSet(
+                InputFileUtils.toFiles(project.getFileSystem().mainFiles(
+                        ObjectiveC.KEY)), resourceResolver.getPathMapper()));
+
+        measuresPersistor.saveMeasures(parseReportsIn(projectBaseDir, parser));
+        resourceResolver.getPathMapper().logMatchCounts("coverage",
+                pathMatches);
     }
 
-    private Map<String, CoverageMeasuresBuilder> parseReportsIn(
-            final String baseDir) {
-        final Map<String, CoverageMeasuresBuilder> measuresTotal = new HashMap<String, CoverageMeasuresBuilder>();
+    /**
+     * Merges the coverage of the files appearing in several reports, such as
+     * the reports of sharded test runs. Reports are parsed concurrently on a
+     * bounded pool.
+     */
+    private Map<String, FileCoverage> parseReportsIn(final String baseDir,
+            final CoberturaParser parser) {
+        final List<File> reports = reportFilesFinder.reportsIn(baseDir);
+        final CoverageAccumulator accumulator = new CoverageAccumulator();
+        final int threads = Math.min(threads(), reports.size());
 
-        for (final File report : reportFilesFinder.reportsIn(baseDir)) {
-            LoggerFactory.getLogger(getClass()).info(
-                    "Processing coverage report {}", report);
-            measuresTotal.putAll(parser.parseReport(report));
+        if (threads <= 1) {
+            for (final File report : reports) {
+                accumulator.add(parseReport(report, parser));
+            }
+        } else {
+            parseInParallel(reports, parser, accumulator, threads);
         }
 
-        return measuresTotal;
+        return accumulator.getCoverage();
+    }
+
+    private void parseInParallel(final List<File> reports,
+            final CoberturaParser parser,
+            final CoverageAccumulator accumulator, final int threads) {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            final List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (final File report : reports) {
+                futures.add(executor.submit(new Runnable() {
+                    public void run() {
+                        accumulator.add(parseReport(report, parser));
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                get(future);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<String, FileCoverage> parseReport(final File report,
+            final CoberturaParser parser) {
+        LoggerFactory.getLogger(getClass()).info(
+                "Processing coverage report {}", report);
+        return parser.parseReport(report);
+    }
+
+    private static void get(final Future<?> future) {
+        try {
+            future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(
+                    "Interrupted while parsing coverage reports.", e);
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(
+                    "Unable to parse coverage reports.", e.getCause());
+        }
+    }
+
+    private int threads() {
+        int threads = conf == null || !conf.hasKey(THREADS_KEY) ? Integer
+                .parseInt(DEFAULT_THREADS) : conf.getInt(THREADS_KEY);
+        return Math.max(1, threads);
     }
 
 }
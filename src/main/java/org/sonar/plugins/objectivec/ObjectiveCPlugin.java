@@ -34,13 +34,26 @@ import com.google.common.collect.ImmutableList;
 
 @Properties({
         @Property(key = ObjectiveCCoverageSensor.REPORT_PATTERN_KEY, defaultValue = ObjectiveCCoverageSensor.DEFAULT_REPORT_PATTERN, name = "Path to unit test coverage report(s)", description = "Relative to projects' root. Ant patterns are accepted", global = false, project = true),
-        @Property(key = OCLintSensor.REPORT_PATH_KEY, defaultValue = OCLintSensor.DEFAULT_REPORT_PATH, name = "Path to oclint pmd formatted report", description = "Relative to projects' root.", global = false, project = true), })
+        @Property(key = ObjectiveCCoverageSensor.THREADS_KEY, defaultValue = ObjectiveCCoverageSensor.DEFAULT_THREADS, name = "Number of coverage parsing threads", description = "Number of coverage reports parsed at the same time.", global = true, project = true),
+        @Property(key = OCLintSensor.REPORT_PATH_KEY, defaultValue = OCLintSensor.DEFAULT_REPORT_PATH, name = "Path to oclint pmd formatted report(s)", description = "Relative to projects' root. Ant patterns are accepted", global = false, project = true),
+        @Property(key = OCLintSensor.FORMAT_KEY, defaultValue = OCLintSensor.DEFAULT_FORMAT, name = "Format of the oclint report(s)", description = "xml for the pmd reporter, json for the json reporter, or auto to detect the format of each report.", global = false, project = true),
+        @Property(key = OCLintRuleRepository.CATALOGS_KEY, name = "Additional OCLint rule catalogs", description = "Comma separated paths of rule catalogs written in the format of the OCLint rule documentation, or of directories of such .txt catalogs.", global = true, project = false),
+        @Property(key = OCLintSensor.THREADS_KEY, defaultValue = OCLintSensor.DEFAULT_THREADS, name = "Number of OCLint parsing threads", description = "Number of OCLint reports parsed at the same time.", global = true, project = true),
+        @Property(key = ReportFilesScanner.EXCLUSIONS_KEY, defaultValue = ReportFilesScanner.DEFAULT_EXCLUSIONS, name = "Directories skipped when looking for reports", description = "Comma separated directory names or Ant patterns relative to projects' root. The directories named in a report pattern are always searched.", global = true, project = true),
+        @Property(key = ObjectiveCResourceResolver.PATH_MAPPINGS_KEY, name = "Report path mappings", description = "Comma separated reportPrefix=localPrefix entries rewriting the paths of reports produced on another machine, such as /Users/ci/workspace/MyApp=/home/me/MyApp.", global = true, project = true),
+        @Property(key = ObjectiveCSquidSensor.THREADS_KEY, defaultValue = ObjectiveCSquidSensor.DEFAULT_THREADS, name = "Number of analysis threads", description = "Number of threads used to scan source files.", global = true, project = true),
+        @Property(key = ObjectiveCSquidSensor.STREAMING_KEY, defaultValue = ObjectiveCSquidSensor.DEFAULT_STREAMING, name = "Bounded memory analysis", description = "Save the measures and violations of each source file as soon as it is analysed instead of keeping the whole project in memory.", global = true, project = true),
+        @Property(key = ObjectiveCSquidSensor.CACHE_KEY, defaultValue = ObjectiveCSquidSensor.DEFAULT_CACHE, name = "Incremental analysis", description = "Keep the Squid results of each source file in the working directory and reuse them for the files which did not change since the previous analysis. The tokens of these files are not cached for duplication detection, which lexes them again.", global = true, project = true),
+        @Property(key = ObjectiveCCpdMapping.NORMALIZE_KEY, defaultValue = ObjectiveCCpdMapping.DEFAULT_NORMALIZE, name = "Duplications of renamed code", description = "Compare identifiers and literals by their kind only when looking for duplications, so that copies differing by names or constants are reported.", global = true, project = true),
+        @Property(key = ObjectiveCTokenCache.MAX_MEMORY_KEY, defaultValue = ObjectiveCTokenCache.DEFAULT_MAX_MEMORY, name = "Token cache memory budget", description = "In megabytes. Tokens produced by the Squid analysis are kept up to this budget for duplication detection, 0 disables the cache.", global = true, project = true), })
 public class ObjectiveCPlugin extends SonarPlugin {
 
     public List<Class<? extends Extension>> getExtensions() {
         return ImmutableList.of(ObjectiveC.class,
                 ObjectiveCSourceImporter.class,
                 ObjectiveCColorizerFormat.class, ObjectiveCCpdMapping.class,
+                ObjectiveCTokenCache.class, ObjectiveCResourceResolver.class,
+                ReportFilesScanner.class,
 
                 ObjectiveCSquidSensor.class, ObjectiveCProfile.class,
                 ObjectiveCCoverageSensor.class, OCLintRuleRepository.class,
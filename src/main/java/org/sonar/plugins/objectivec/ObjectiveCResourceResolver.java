@@ -0,0 +1,124 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.commons.io.FilenameUtils;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.File;
+import org.sonar.api.resources.Project;
+
+/**
+ * Per-analysis cache of the project resources of the paths found by the
+ * sensors in reports and in the Squid results. Each distinct path is
+ * normalized once, and paths which are not part of the project are
+ * remembered as well. Only the files found in the context are remembered by
+ * {@link #resolve}: a file which is not indexed yet may be indexed later in
+ * the analysis. Paths read from reports are first rewritten by the
+ * configured {@link PathPrefixMapper}. Safe to use from several threads.
+ */
+public final class ObjectiveCResourceResolver implements BatchExtension {
+    public static final String PATH_MAPPINGS_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
+            + ".pathMappings";
+    private static final Object NOT_FOUND = new Object();
+
+    private final PathPrefixMapper pathMapper;
+
+    private final ConcurrentMap<String, Object> resourcesByPath = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentMap<String, Object> resourcesByNormalizedPath = new ConcurrentHashMap<String, Object>();
+    private final ConcurrentMap<String, File> indexedResources = new ConcurrentHashMap<String, File>();
+
+    public ObjectiveCResourceResolver() {
+        this(null);
+    }
+
+    public ObjectiveCResourceResolver(final Settings config) {
+        pathMapper = new PathPrefixMapper(config == null ? new String[0]
+                : config.getStringArray(PATH_MAPPINGS_KEY));
+    }
+
+    public PathPrefixMapper getPathMapper() {
+        return pathMapper;
+    }
+
+    /**
+     * @return the project file of the path, whether or not it is already
+     *         indexed in the context, or null when the path is outside the
+     *         source directories of the project.
+     */
+    public File fromIOFile(final String path, final Project project) {
+        Object resource = resourcesByPath.get(path);
+        if (resource == null) {
+            final String normalizedPath = normalize(path);
+            resource = resourcesByNormalizedPath.get(normalizedPath);
+            if (resource == null) {
+                resource = File.fromIOFile(new java.io.File(normalizedPath),
+                        project);
+                if (resource == null) {
+                    resource = NOT_FOUND;
+                }
+                resourcesByNormalizedPath.putIfAbsent(normalizedPath,
+                        resource);
+            }
+            resourcesByPath.putIfAbsent(path, resource);
+        }
+        return resource == NOT_FOUND ? null : (File) resource;
+    }
+
+    /**
+     * @param path as found in a report, possibly produced on another machine.
+     * @return the project file of the path, or null when it is not indexed
+     *         in the context.
+     */
+    public File resolve(final String path, final Project project,
+            final SensorContext context) {
+        File resource = indexedResources.get(path);
+        if (resource == null) {
+            final File file = fromIOFile(pathMapper.map(path), project);
+            if (file == null || !isIndexed(file, context)) {
+                return null;
+            }
+            resource = file;
+            indexedResources.putIfAbsent(path, resource);
+        }
+        return resource;
+    }
+
+    /**
+     * The context is not thread safe, sensors parsing reports concurrently
+     * share it under its own lock.
+     */
+    private static boolean isIndexed(final File file,
+            final SensorContext context) {
+        synchronized (context) {
+            return context.getResource(file) != null;
+        }
+    }
+
+    static String normalize(final String path) {
+        final String absolutePath = new java.io.File(path).getAbsolutePath();
+        final String normalizedPath = FilenameUtils.normalize(absolutePath);
+        return normalizedPath == null ? absolutePath : normalizedPath;
+    }
+}
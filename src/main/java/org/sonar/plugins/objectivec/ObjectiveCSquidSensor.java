@@ -19,52 +19,74 @@
  */
 package org.sonar.plugins.objectivec;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Locale;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
+import org.slf4j.LoggerFactory;
+import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.Sensor;
 import org.sonar.api.batch.SensorContext;
 import org.sonar.api.checks.AnnotationCheckFactory;
-import org.sonar.api.measures.CoreMetrics;
-import org.sonar.api.measures.PersistenceMode;
-import org.sonar.api.measures.RangeDistributionBuilder;
+import org.sonar.api.config.Settings;
 import org.sonar.api.profiles.RulesProfile;
-import org.sonar.api.resources.File;
 import org.sonar.api.resources.InputFileUtils;
 import org.sonar.api.resources.Project;
-import org.sonar.api.rules.Violation;
-import org.sonar.objectivec.ObjectiveCAstScanner;
 import org.sonar.objectivec.ObjectiveCConfiguration;
+import org.sonar.objectivec.ParallelAstScanner;
 import org.sonar.objectivec.api.ObjectiveCGrammar;
-import org.sonar.objectivec.api.ObjectiveCMetric;
 import org.sonar.objectivec.checks.CheckList;
+import org.sonar.objectivec.lexer.TokenCacheVisitor;
 import org.sonar.plugins.objectivec.core.ObjectiveC;
-import org.sonar.squid.api.CheckMessage;
 import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceCodeSearchEngine;
 import org.sonar.squid.api.SourceFile;
-import org.sonar.squid.api.SourceFunction;
-import org.sonar.squid.indexer.QueryByParent;
 import org.sonar.squid.indexer.QueryByType;
 
-import com.sonar.sslr.squid.AstScanner;
-import com.sonar.sslr.squid.checks.SquidCheck;
+import com.sonar.sslr.squid.SquidAstVisitor;
 
 public class ObjectiveCSquidSensor implements Sensor {
 
-    private final Number[] FUNCTIONS_DISTRIB_BOTTOM_LIMITS = { 1, 2, 4, 6, 8,
-            10, 12, 20, 30 };
-    private final Number[] FILES_DISTRIB_BOTTOM_LIMITS = { 0, 5, 10, 20, 30,
-            60, 90 };
+    public static final String THREADS_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
+            + ".threads";
+    public static final String DEFAULT_THREADS = "1";
+    public static final String STREAMING_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
+            + ".streaming";
+    public static final String DEFAULT_STREAMING = ObjectiveCPlugin.FALSE;
+    public static final String CACHE_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
+            + ".squidCache";
+    public static final String DEFAULT_CACHE = ObjectiveCPlugin.FALSE;
+    private static final String CACHE_FILE = "objectivec-squid-cache.bin";
+
+    private final RulesProfile profile;
+    private final ObjectiveCTokenCache tokenCache;
+    private final Settings conf;
+    private final ObjectiveCResourceResolver resourceResolver;
+    private final List<AnnotationCheckFactory> annotationCheckFactories = new CopyOnWriteArrayList<AnnotationCheckFactory>();
 
-    private final AnnotationCheckFactory annotationCheckFactory;
+    public ObjectiveCSquidSensor(RulesProfile profile) {
+        this(profile, new ObjectiveCTokenCache());
+    }
 
-    private Project project;
-    private SensorContext context;
-    private AstScanner<ObjectiveCGrammar> scanner;
+    public ObjectiveCSquidSensor(RulesProfile profile,
+            ObjectiveCTokenCache tokenCache) {
+        this(profile, tokenCache, null);
+    }
 
-    public ObjectiveCSquidSensor(RulesProfile profile) {
-        this.annotationCheckFactory = AnnotationCheckFactory.create(profile,
-                CheckList.REPOSITORY_KEY, CheckList.getChecks());
+    public ObjectiveCSquidSensor(RulesProfile profile,
+            ObjectiveCTokenCache tokenCache, Settings conf) {
+        this(profile, tokenCache, conf, new ObjectiveCResourceResolver());
+    }
+
+    public ObjectiveCSquidSensor(RulesProfile profile,
+            ObjectiveCTokenCache tokenCache, Settings conf,
+            ObjectiveCResourceResolver resourceResolver) {
+        this.profile = profile;
+        this.tokenCache = tokenCache;
+        this.conf = conf;
+        this.resourceResolver = resourceResolver;
     }
 
     public boolean shouldExecuteOnProject(Project project) {
@@ -72,98 +94,151 @@ public class ObjectiveCSquidSensor implements Sensor {
     }
 
     public void analyse(Project project, SensorContext context) {
-        this.project = project;
-        this.context = context;
+        annotationCheckFactories.clear();
+        ObjectiveCConfiguration configuration = createConfiguration(project);
+        final boolean cacheTokens = isCpdEnabled(project);
+        ParallelAstScanner scanner = new ParallelAstScanner(configuration,
+                new ParallelAstScanner.VisitorsFactory() {
+                    public SquidAstVisitor<ObjectiveCGrammar>[] create() {
+                        return createVisitors(cacheTokens);
+                    }
+                });
+        final SquidMeasuresPersistor persistor = new SquidMeasuresPersistor(
+                project, context, annotationCheckFactories, resourceResolver);
+        List<java.io.File> files = InputFileUtils.toFiles(project
+                .getFileSystem().mainFiles(ObjectiveC.KEY));
+
+        final SquidResultCache cache = isCaching() ? createCache(project,
+                configuration) : null;
+        if (cache != null) {
+            files = replayCachedFiles(files, cache, persistor);
+        }
 
-        Collection<SquidCheck> squidChecks = annotationCheckFactory.getChecks();
-        this.scanner = ObjectiveCAstScanner.create(
-                createConfiguration(project),
-                squidChecks.toArray(new SquidCheck[squidChecks.size()]));
-        scanner.scanFiles(InputFileUtils.toFiles(project.getFileSystem()
-                .mainFiles(ObjectiveC.KEY)));
+        if (isStreaming()) {
+            scanner.scanFiles(files, new ParallelAstScanner.SourceFileHandler() {
+                public void handle(SourceFile sourceFile) {
+                    // the sensor context is not thread safe
+                    synchronized (persistor) {
+                        save(persistor.measure(sourceFile), persistor, cache);
+                    }
+                }
+            });
+        } else {
+            SourceCodeSearchEngine index = scanner.scanFiles(files);
+            Collection<SourceCode> squidSourceFiles = index
+                    .search(new QueryByType(SourceFile.class));
+            for (SourceCode squidSourceFile : squidSourceFiles) {
+                save(persistor.measure((SourceFile) squidSourceFile),
+                        persistor, cache);
+            }
+        }
 
-        Collection<SourceCode> squidSourceFiles = scanner.getIndex().search(
-                new QueryByType(SourceFile.class));
-        save(squidSourceFiles);
+        if (cache != null) {
+            try {
+                cache.save();
+            } catch (IOException e) {
+                LoggerFactory.getLogger(getClass()).warn(
+                        "Unable to save the Squid result cache", e);
+            }
+        }
     }
 
-    private ObjectiveCConfiguration createConfiguration(Project project) {
-        return new ObjectiveCConfiguration(project.getFileSystem()
-                .getSourceCharset());
+    /**
+     * Saves the cached results of the unchanged files.
+     *
+     * @return the files to scan.
+     */
+    private static List<java.io.File> replayCachedFiles(
+            List<java.io.File> files, SquidResultCache cache,
+            SquidMeasuresPersistor persistor) {
+        List<java.io.File> changedFiles = new ArrayList<java.io.File>();
+        for (java.io.File file : files) {
+            SquidFileMeasures measures = cache.get(file);
+            if (measures == null) {
+                changedFiles.add(file);
+            } else {
+                persistor.save(measures);
+            }
+        }
+        return changedFiles;
     }
 
-    private void save(Collection<SourceCode> squidSourceFiles) {
-        for (SourceCode squidSourceFile : squidSourceFiles) {
-            SourceFile squidFile = (SourceFile) squidSourceFile;
-
-            File sonarFile = File.fromIOFile(
-                    new java.io.File(squidFile.getKey()), project);
+    private static void save(SquidFileMeasures measures,
+            SquidMeasuresPersistor persistor, SquidResultCache cache) {
+        persistor.save(measures);
+        if (cache != null) {
+            cache.put(measures);
+        }
+    }
 
-            saveFilesComplexityDistribution(sonarFile, squidFile);
-            saveFunctionsComplexityDistribution(sonarFile, squidFile);
-            saveMeasures(sonarFile, squidFile);
-            saveViolations(sonarFile, squidFile);
+    /**
+     * @return null when the plugin build is unknown, since the cached results
+     *         of another build could then be reused.
+     */
+    private SquidResultCache createCache(Project project,
+            ObjectiveCConfiguration configuration) {
+        String version = SquidResultCache.buildVersion();
+        if (version == null) {
+            LoggerFactory.getLogger(getClass()).warn(
+                    "Squid result cache disabled: the plugin build is unknown");
+            return null;
         }
+        SquidResultCache cache = new SquidResultCache(new java.io.File(project
+                .getFileSystem().getSonarWorkingDirectory(), CACHE_FILE),
+                SquidResultCache.fingerprint(version, profile, configuration),
+                profile);
+        cache.load();
+        return cache;
     }
 
-    private void saveMeasures(File sonarFile, SourceFile squidFile) {
-        context.saveMeasure(sonarFile, CoreMetrics.FILES,
-                squidFile.getDouble(ObjectiveCMetric.FILES));
-        context.saveMeasure(sonarFile, CoreMetrics.LINES,
-                squidFile.getDouble(ObjectiveCMetric.LINES));
-        context.saveMeasure(sonarFile, CoreMetrics.NCLOC,
-                squidFile.getDouble(ObjectiveCMetric.LINES_OF_CODE));
-        context.saveMeasure(sonarFile, CoreMetrics.FUNCTIONS,
-                squidFile.getDouble(ObjectiveCMetric.FUNCTIONS));
-        context.saveMeasure(sonarFile, CoreMetrics.STATEMENTS,
-                squidFile.getDouble(ObjectiveCMetric.STATEMENTS));
-        context.saveMeasure(sonarFile, CoreMetrics.COMPLEXITY,
-                squidFile.getDouble(ObjectiveCMetric.COMPLEXITY));
-        context.saveMeasure(sonarFile, CoreMetrics.COMMENT_BLANK_LINES,
-                squidFile.getDouble(ObjectiveCMetric.COMMENT_BLANK_LINES));
-        context.saveMeasure(sonarFile, CoreMetrics.COMMENT_LINES,
-                squidFile.getDouble(ObjectiveCMetric.COMMENT_LINES));
-    }
-
-    private void saveFunctionsComplexityDistribution(File sonarFile,
-            SourceFile squidFile) {
-        Collection<SourceCode> squidFunctionsInFile = scanner.getIndex()
-                .search(new QueryByParent(squidFile),
-                        new QueryByType(SourceFunction.class));
-        RangeDistributionBuilder complexityDistribution = new RangeDistributionBuilder(
-                CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION,
-                FUNCTIONS_DISTRIB_BOTTOM_LIMITS);
-        for (SourceCode squidFunction : squidFunctionsInFile) {
-            complexityDistribution.add(squidFunction
-                    .getDouble(ObjectiveCMetric.COMPLEXITY));
+    /**
+     * Each scanning thread gets its own check instances, hence its own
+     * check factory.
+     */
+    private SquidAstVisitor<ObjectiveCGrammar>[] createVisitors(
+            boolean cacheTokens) {
+        AnnotationCheckFactory annotationCheckFactory = AnnotationCheckFactory
+                .create(profile, CheckList.REPOSITORY_KEY,
+                        CheckList.getChecks());
+        annotationCheckFactories.add(annotationCheckFactory);
+
+        List<SquidAstVisitor<ObjectiveCGrammar>> visitors = new ArrayList<SquidAstVisitor<ObjectiveCGrammar>>(
+                annotationCheckFactory.getChecks());
+        if (cacheTokens) {
+            visitors.add(new TokenCacheVisitor(tokenCache));
         }
-        context.saveMeasure(sonarFile, complexityDistribution.build()
-                .setPersistenceMode(PersistenceMode.MEMORY));
-    }
-
-    private void saveFilesComplexityDistribution(File sonarFile,
-            SourceFile squidFile) {
-        RangeDistributionBuilder complexityDistribution = new RangeDistributionBuilder(
-                CoreMetrics.FILE_COMPLEXITY_DISTRIBUTION,
-                FILES_DISTRIB_BOTTOM_LIMITS);
-        complexityDistribution.add(squidFile
-                .getDouble(ObjectiveCMetric.COMPLEXITY));
-        context.saveMeasure(sonarFile, complexityDistribution.build()
-                .setPersistenceMode(PersistenceMode.MEMORY));
-    }
-
-    private void saveViolations(File sonarFile, SourceFile squidFile) {
-        Collection<CheckMessage> messages = squidFile.getCheckMessages();
-        if (messages != null) {
-            for (CheckMessage message : messages) {
-                Violation violation = Violation
-                        .create(annotationCheckFactory.getActiveRule(message
-                                .getChecker()), sonarFile)
-                        .setLineId(message.getLine())
-                        .setMessage(message.getText(Locale.ENGLISH));
-                context.saveViolation(violation);
-            }
+        return visitors.toArray(new SquidAstVisitor[visitors.size()]);
+    }
+
+    private ObjectiveCConfiguration createConfiguration(Project project) {
+        ObjectiveCConfiguration configuration = new ObjectiveCConfiguration(
+                project.getFileSystem().getSourceCharset());
+        configuration.setThreads(threads());
+        return configuration;
+    }
+
+    private boolean isCaching() {
+        return conf != null && conf.getBoolean(CACHE_KEY);
+    }
+
+    private boolean isCpdEnabled(Project project) {
+        if (conf == null) {
+            return true;
         }
+        // same lookup as the CPD sensor of the batch
+        String languageKey = "sonar.cpd." + project.getLanguageKey() + ".skip";
+        return !(conf.hasKey(languageKey) ? conf.getBoolean(languageKey)
+                : conf.getBoolean(CoreProperties.CPD_SKIP_PROPERTY));
+    }
+
+    private boolean isStreaming() {
+        return conf != null && conf.getBoolean(STREAMING_KEY);
+    }
+
+    private int threads() {
+        int threads = conf == null || !conf.hasKey(THREADS_KEY) ? Integer
+                .parseInt(DEFAULT_THREADS) : conf.getInt(THREADS_KEY);
+        return Math.max(1, threads);
     }
 
     @Override
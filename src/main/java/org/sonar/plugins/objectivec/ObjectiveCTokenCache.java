@@ -0,0 +1,67 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.PostJob;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+import org.sonar.objectivec.lexer.TokenCache;
+
+/**
+ * Per-analysis token cache filled by the Squid sensor when duplication
+ * detection is enabled and emptied by the CPD tokenizer. The entries CPD did
+ * not take are dropped once the analysis is done.
+ */
+public final class ObjectiveCTokenCache extends TokenCache implements PostJob {
+    public static final String MAX_MEMORY_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
+            + ".tokenCache.maxMemory";
+    public static final String DEFAULT_MAX_MEMORY = "64";
+    private static final long MEGABYTE = 1024L * 1024L;
+
+    public ObjectiveCTokenCache() {
+        this(null);
+    }
+
+    public ObjectiveCTokenCache(final Settings config) {
+        super(maxMemory(config) * MEGABYTE);
+    }
+
+    public void executeOn(final Project project, final SensorContext context) {
+        clear();
+    }
+
+    private static long maxMemory(final Settings config) {
+        final long defaultMaxMemory = Long.parseLong(DEFAULT_MAX_MEMORY);
+        if (config == null || !config.hasKey(MAX_MEMORY_KEY)) {
+            return defaultMaxMemory;
+        }
+        try {
+            return Math.max(0L, config.getLong(MAX_MEMORY_KEY));
+        } catch (NumberFormatException e) {
+            LoggerFactory.getLogger(ObjectiveCTokenCache.class).warn(
+                    "Invalid {} '{}', using {} megabytes", new Object[] {
+                            MAX_MEMORY_KEY, config.getString(MAX_MEMORY_KEY),
+                            defaultMaxMemory });
+            return defaultMaxMemory;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.LoggerFactory;
+
+/**
+ * Rewrites the paths found in reports produced on another machine, such as
+ * <code>/Users/ci/workspace/MyApp/Classes/A.m</code>, by replacing the
+ * longest configured prefix with its local counterpart. Prefixes are
+ * compiled into a trie over path segments, so rewriting a path takes time
+ * proportional to its depth and prefixes only match whole segments. Each
+ * mapping counts the distinct paths it rewrote, however many times they are
+ * mapped by the sensors.
+ */
+final class PathPrefixMapper {
+    private static final String MAPPING_SEPARATOR = "=";
+
+    private final Node root = new Node();
+    private final List<Mapping> mappings = new ArrayList<Mapping>();
+
+    /**
+     * @param mappings entries of the form <code>reportPrefix=localPrefix</code>
+     *            .
+     */
+    public PathPrefixMapper(final String[] mappings) {
+        for (final String mapping : mappings) {
+            final int separator = mapping.lastIndexOf(MAPPING_SEPARATOR);
+            if (separator <= 0) {
+                throw new IllegalArgumentException("Invalid path mapping '"
+                        + mapping + "', expected reportPrefix=localPrefix");
+            }
+            add(mapping.substring(0, separator).trim(),
+                    mapping.substring(separator + 1).trim());
+        }
+    }
+
+    private void add(final String from, final String to) {
+        final Mapping mapping = new Mapping(from, trimSeparators(to));
+        Node node = root;
+        final String prefix = trimSeparators(from);
+        int start = 0;
+        while (start <= prefix.length()) {
+            final int end = nextSeparator(prefix, start);
+            final String segment = prefix.substring(start, end);
+            Node child = node.children.get(segment);
+            if (child == null) {
+                child = new Node();
+                node.children.put(segment, child);
+            }
+            node = child;
+            start = end + 1;
+        }
+        node.mapping = mapping;
+        mappings.add(mapping);
+    }
+
+    /**
+     * @return the path with its longest mapped prefix rewritten, or the path
+     *         itself when no prefix matches.
+     */
+    public String map(final String path) {
+        if (mappings.isEmpty()) {
+            return path;
+        }
+        Node node = root;
+        Mapping longest = null;
+        int longestEnd = 0;
+        int start = 0;
+        while (start <= path.length()) {
+            final int end = nextSeparator(path, start);
+            node = node.children.get(path.substring(start, end));
+            if (node == null) {
+                break;
+            }
+            if (node.mapping != null) {
+                longest = node.mapping;
+                longestEnd = end;
+            }
+            start = end + 1;
+        }
+        if (longest == null) {
+            return path;
+        }
+        longest.matchedPaths.add(path);
+        return longest.to + path.substring(longestEnd);
+    }
+
+    public boolean isEmpty() {
+        return mappings.isEmpty();
+    }
+
+    /**
+     * @return the number of distinct paths rewritten by each mapping so far,
+     *         by report prefix.
+     */
+    public Map<String, Long> getMatchCounts() {
+        final Map<String, Long> counts = new HashMap<String, Long>();
+        for (final Mapping mapping : mappings) {
+            counts.put(mapping.from, Long.valueOf(mapping.matchedPaths.size()));
+        }
+        return counts;
+    }
+
+    /**
+     * Logs the paths each mapping rewrote since the given counts were taken,
+     * so that each sensor only reports the paths of its own reports which no
+     * previous sensor had mapped.
+     *
+     * @param reports
+     *            kind of reports read since, such as "coverage".
+     * @param before
+     *            counts returned by {@link #getMatchCounts()}.
+     */
+    public void logMatchCounts(final String reports,
+            final Map<String, Long> before) {
+        for (final Mapping mapping : mappings) {
+            final Long previous = before.get(mapping.from);
+            final long matches = mapping.matchedPaths.size()
+                    - (previous == null ? 0 : previous.longValue());
+            LoggerFactory.getLogger(getClass()).info(
+                    "Path mapping {} matched {} new paths of the " + reports
+                            + " reports", mapping.from + " -> " + mapping.to,
+                    matches);
+        }
+    }
+
+    private static int nextSeparator(final String path, final int start) {
+        for (int i = start; i < path.length(); i++) {
+            if (isSeparator(path.charAt(i))) {
+                return i;
+            }
+        }
+        return path.length();
+    }
+
+    private static boolean isSeparator(final char c) {
+        return c == '/' || c == '\\';
+    }
+
+    /**
+     * A root prefix such as <code>/</code> becomes the empty string, which is
+     * the single empty segment every absolute path starts with.
+     */
+    private static String trimSeparators(final String path) {
+        int end = path.length();
+        while (end > 0 && isSeparator(path.charAt(end - 1))) {
+            end--;
+        }
+        return path.substring(0, end);
+    }
+
+    private static final class Node {
+        private final Map<String, Node> children = new HashMap<String, Node>();
+        private Mapping mapping;
+    }
+
+    private static final class Mapping {
+        private final String from;
+        private final String to;
+        private final Set<String> matchedPaths = Collections
+                .newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+        Mapping(final String from, final String to) {
+            this.from = from;
+            this.to = to;
+        }
+    }
+}
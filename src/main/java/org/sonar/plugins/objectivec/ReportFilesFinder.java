@@ -20,43 +20,31 @@
 package org.sonar.plugins.objectivec;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.List;
 
-import org.apache.tools.ant.DirectoryScanner;
 import org.sonar.api.config.Settings;
 
 final class ReportFilesFinder {
     private final Settings conf;
     private final String settingsKey;
     private final String settingsDefault;
+    private final ReportFilesScanner scanner;
 
     public ReportFilesFinder(final Settings settings, final String key,
             final String defaultValue) {
+        this(settings, key, defaultValue, new ReportFilesScanner(settings));
+    }
+
+    public ReportFilesFinder(final Settings settings, final String key,
+            final String defaultValue, final ReportFilesScanner filesScanner) {
         conf = settings;
         settingsKey = key;
         settingsDefault = defaultValue;
+        scanner = filesScanner;
     }
 
     public List<File> reportsIn(final String baseDirPath) {
-        final String[] relPaths = filesMathingPattern(baseDirPath,
-                reportPattern());
-
-        final List<File> reports = new ArrayList<File>();
-        for (final String relPath : relPaths) {
-            reports.add(new File(baseDirPath, relPath));
-        }
-
-        return reports;
-    }
-
-    private String[] filesMathingPattern(final String baseDirPath,
-            final String reportPath) {
-        final DirectoryScanner scanner = new DirectoryScanner();
-        scanner.setIncludes(new String[] { reportPath });
-        scanner.setBasedir(new File(baseDirPath));
-        scanner.scan();
-        return scanner.getIncludedFiles();
+        return scanner.scan(new File(baseDirPath), reportPattern());
     }
 
     private String reportPattern() {
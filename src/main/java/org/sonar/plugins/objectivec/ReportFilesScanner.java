@@ -0,0 +1,222 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.tools.ant.types.selectors.SelectorUtils;
+import org.sonar.api.BatchExtension;
+import org.sonar.api.config.Settings;
+
+/**
+ * Finds the files of a project matching an Ant pattern, shared by the
+ * sensors for the whole analysis. The walk starts from the directory named
+ * by the literal prefix of the pattern, only enters the directories some
+ * path of the pattern can go through, and never enters the excluded
+ * directories, such as the ones of CocoaPods or of the version control.
+ * Directory listings and the files found for each pattern are kept, so that
+ * sensors looking for reports in the same directories list them once. A
+ * compressed report matches the patterns its uncompressed name matches,
+ * unless the uncompressed report is next to it. Each directory is entered
+ * once per walk, whatever symbolic links lead to it, so that link cycles end.
+ */
+public final class ReportFilesScanner implements BatchExtension {
+    public static final String EXCLUSIONS_KEY = ObjectiveCPlugin.PROPERTY_PREFIX
+            + ".reportExclusions";
+    public static final String DEFAULT_EXCLUSIONS = ".git,.svn,.hg,Pods";
+
+    private static final String ANY_DIRECTORY = "**";
+
+    private final List<String> exclusions = new ArrayList<String>();
+    private final ConcurrentMap<File, Listing> listings = new ConcurrentHashMap<File, Listing>();
+    private final ConcurrentMap<String, List<File>> matches = new ConcurrentHashMap<String, List<File>>();
+
+    public ReportFilesScanner() {
+        this(null);
+    }
+
+    public ReportFilesScanner(final Settings config) {
+        String[] entries = config == null ? null : config
+                .getStringArray(EXCLUSIONS_KEY);
+        if (entries == null || entries.length == 0) {
+            entries = DEFAULT_EXCLUSIONS.split(",");
+        }
+        for (final String entry : entries) {
+            final String exclusion = normalizePattern(entry.trim());
+            if (exclusion.length() == 0) {
+                continue;
+            }
+            // a bare directory name is excluded wherever it appears
+            exclusions.add(exclusion.indexOf(File.separatorChar) < 0 ? ANY_DIRECTORY
+                    + File.separator + exclusion
+                    : exclusion);
+        }
+    }
+
+    /**
+     * @param pattern
+     *            Ant pattern relative to the base directory. The directories
+     *            of its literal prefix are entered even when excluded.
+     * @return the matching files, sorted by path.
+     */
+    public List<File> scan(final File baseDir, final String pattern) {
+        final String normalizedPattern = normalizePattern(pattern);
+        final String key = baseDir.getAbsolutePath() + File.pathSeparator
+                + normalizedPattern;
+        List<File> files = matches.get(key);
+        if (files == null) {
+            files = walk(baseDir, normalizedPattern);
+            matches.putIfAbsent(key, files);
+        }
+        return files;
+    }
+
+    private List<File> walk(final File baseDir, final String pattern) {
+        final String[] segments = pattern.split("\\" + File.separator);
+        final StringBuilder prefix = new StringBuilder();
+        File startDir = baseDir;
+        for (int i = 0; i < segments.length - 1 && isLiteral(segments[i]); i++) {
+            if (prefix.length() > 0) {
+                prefix.append(File.separatorChar);
+            }
+            prefix.append(segments[i]);
+            startDir = new File(startDir, segments[i]);
+        }
+
+        final List<File> found = new ArrayList<File>();
+        if (startDir.isDirectory()) {
+            walk(startDir, prefix.toString(), pattern, found,
+                    new HashSet<String>());
+        }
+        Collections.sort(found);
+        return Collections.unmodifiableList(found);
+    }
+
+    private void walk(final File dir, final String relativePath,
+            final String pattern, final List<File> found,
+            final Set<String> visited) {
+        final Listing listing = listingOf(dir);
+        if (!visited.add(listing.canonicalPath)) {
+            return;
+        }
+        for (final File file : listing.files) {
+            if (SelectorUtils.matchPath(pattern,
+                    childPath(relativePath, file.getName()))) {
+                found.add(file);
+            } else {
+                final String uncompressedName = ReportStreams
+                        .uncompressedName(file.getName());
+                if (uncompressedName != null
+                        && !listing.fileNames.contains(uncompressedName)
+                        && SelectorUtils.matchPath(pattern,
+                                childPath(relativePath, uncompressedName))) {
+                    found.add(file);
+                }
+            }
+        }
+        for (final File directory : listing.directories) {
+            final String path = childPath(relativePath, directory.getName());
+            if (!isExcluded(path)
+                    && SelectorUtils.matchPatternStart(pattern, path)) {
+                walk(directory, path, pattern, found, visited);
+            }
+        }
+    }
+
+    private Listing listingOf(final File dir) {
+        Listing listing = listings.get(dir);
+        if (listing == null) {
+            listing = new Listing(dir);
+            listings.putIfAbsent(dir, listing);
+        }
+        return listing;
+    }
+
+    private boolean isExcluded(final String path) {
+        for (final String exclusion : exclusions) {
+            if (SelectorUtils.matchPath(exclusion, path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String childPath(final String relativePath,
+            final String name) {
+        return relativePath.length() == 0 ? name : relativePath
+                + File.separatorChar + name;
+    }
+
+    private static boolean isLiteral(final String segment) {
+        return segment.indexOf('*') < 0 && segment.indexOf('?') < 0;
+    }
+
+    /**
+     * Same normalization as the Ant DirectoryScanner: either separator is
+     * accepted and a trailing one stands for everything below.
+     */
+    private static String normalizePattern(final String pattern) {
+        String normalized = pattern.replace('/', File.separatorChar).replace(
+                '\\', File.separatorChar);
+        if (normalized.endsWith(File.separator)) {
+            normalized += ANY_DIRECTORY;
+        }
+        return normalized;
+    }
+
+    private static final class Listing {
+        private final String canonicalPath;
+        private final List<File> files = new ArrayList<File>();
+        private final Set<String> fileNames = new HashSet<String>();
+        private final List<File> directories = new ArrayList<File>();
+
+        Listing(final File dir) {
+            canonicalPath = canonicalPath(dir);
+            final File[] children = dir.listFiles();
+            if (children != null) {
+                for (final File child : children) {
+                    if (child.isDirectory()) {
+                        directories.add(child);
+                    } else {
+                        files.add(child);
+                        fileNames.add(child.getName());
+                    }
+                }
+            }
+        }
+
+        private static String canonicalPath(final File dir) {
+            try {
+                return dir.getCanonicalPath();
+            } catch (final IOException e) {
+                return dir.getAbsolutePath();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,232 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.base.Throwables;
+import com.google.common.io.Closeables;
+
+/**
+ * Opens report files, whether they are plain or compressed. Compression is
+ * recognized from the first bytes of the file rather than from its name.
+ * Gzip reports are decompressed by a thread of their own, a few chunks
+ * ahead of the parser reading them, so that reading and inflating the file
+ * overlap with parsing.
+ */
+final class ReportStreams {
+    // only the suffixes of the compressions open() can read
+    private static final String[] COMPRESSED_SUFFIXES = { ".gz" };
+    private static final int GZIP_MAGIC = 0x1f8b;
+    private static final int ZSTD_MAGIC = 0x28b52ffd;
+    private static final int MAGIC_LENGTH = 4;
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int QUEUED_CHUNKS = 8;
+
+    private ReportStreams() {
+    }
+
+    /**
+     * @return a stream of the uncompressed content of the report, to be
+     *         closed by the caller.
+     */
+    public static InputStream open(final File report) throws IOException {
+        final InputStream input = new BufferedInputStream(new FileInputStream(
+                report), BUFFER_SIZE);
+        try {
+            final int magic = readMagic(input);
+            if (magic >>> 16 == GZIP_MAGIC) {
+                return new DecompressingInputStream(new GZIPInputStream(input,
+                        BUFFER_SIZE), report.getName());
+            }
+            if (magic == ZSTD_MAGIC) {
+                throw new IOException("Zstandard compressed report " + report
+                        + " is not supported, compress it with gzip instead");
+            }
+            return input;
+        } catch (final IOException e) {
+            Closeables.closeQuietly(input);
+            throw e;
+        }
+    }
+
+    /**
+     * @return the name of the file once uncompressed, or null when the name
+     *         is not the one of a compressed file.
+     */
+    public static String uncompressedName(final String name) {
+        for (final String suffix : COMPRESSED_SUFFIXES) {
+            if (name.endsWith(suffix) && name.length() > suffix.length()) {
+                return name.substring(0, name.length() - suffix.length());
+            }
+        }
+        return null;
+    }
+
+    private static int readMagic(final InputStream input) throws IOException {
+        input.mark(MAGIC_LENGTH);
+        int magic = 0;
+        for (int i = 0; i < MAGIC_LENGTH; i++) {
+            final int b = input.read();
+            magic = magic << 8 | (b < 0 ? 0 : b);
+        }
+        input.reset();
+        return magic;
+    }
+
+    /**
+     * Hands over the chunks inflated by a daemon thread. Closing the stream
+     * stops the thread. Whatever makes the thread fail is thrown to the
+     * reader once the chunks inflated before are read.
+     */
+    static final class DecompressingInputStream extends InputStream {
+        private static final byte[] END = new byte[0];
+
+        private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<byte[]>(
+                QUEUED_CHUNKS);
+        private final Thread producer;
+        private volatile Throwable failure;
+        private byte[] chunk;
+        private int position;
+        private boolean ended;
+
+        DecompressingInputStream(final InputStream compressed,
+                final String name) {
+            producer = new Thread(new Runnable() {
+                public void run() {
+                    inflate(compressed);
+                }
+            }, "Decompression of " + name);
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        private void inflate(final InputStream compressed) {
+            try {
+                int length;
+                do {
+                    final byte[] buffer = new byte[BUFFER_SIZE];
+                    length = readFully(compressed, buffer);
+                    if (length > 0) {
+                        chunks.put(length == BUFFER_SIZE ? buffer : Arrays
+                                .copyOf(buffer, length));
+                    }
+                } while (length == BUFFER_SIZE);
+            } catch (final InterruptedException e) {
+                // closed by the reader
+            } catch (final Throwable e) {
+                failure = e;
+            } finally {
+                Closeables.closeQuietly(compressed);
+                // the reader blocks until the end is queued
+                try {
+                    chunks.put(END);
+                } catch (final InterruptedException e) {
+                    // closed by the reader
+                }
+            }
+        }
+
+        private static int readFully(final InputStream input,
+                final byte[] buffer) throws IOException {
+            int length = 0;
+            while (length < buffer.length) {
+                final int read = input.read(buffer, length, buffer.length
+                        - length);
+                if (read < 0) {
+                    break;
+                }
+                length += read;
+            }
+            return length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (!nextChunk()) {
+                return -1;
+            }
+            return chunk[position++] & 0xff;
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len)
+                throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextChunk()) {
+                return -1;
+            }
+            final int length = Math.min(len, chunk.length - position);
+            System.arraycopy(chunk, position, b, off, length);
+            position += length;
+            return length;
+        }
+
+        @Override
+        public int available() {
+            return chunk == null ? 0 : chunk.length - position;
+        }
+
+        @Override
+        public void close() {
+            producer.interrupt();
+            chunks.clear();
+        }
+
+        private boolean nextChunk() throws IOException {
+            if (chunk != null && position < chunk.length) {
+                return true;
+            }
+            if (ended) {
+                return false;
+            }
+            try {
+                chunk = chunks.take();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException(
+                        "Interrupted while decompressing a report");
+            }
+            position = 0;
+            if (chunk == END) {
+                ended = true;
+                if (failure != null) {
+                    Throwables.propagateIfPossible(failure, IOException.class);
+                    throw new IOException("Unable to decompress a report",
+                            failure);
+                }
+                return false;
+            }
+            return true;
+        }
+    }
+
+}
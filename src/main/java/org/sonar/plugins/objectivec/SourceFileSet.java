@@ -0,0 +1,63 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The source files of the project, resolved once so that reports can tell
+ * in a single lookup whether a path is worth reading. Relative paths are
+ * resolved against the working directory, as
+ * {@link org.sonar.api.resources.File#fromIOFile} does. Both the absolute
+ * and the canonical path of each source file are known, so that reports
+ * going through symbolic links still match. Reported paths are rewritten by
+ * the path mapper first.
+ */
+final class SourceFileSet {
+    private final Set<String> paths = new HashSet<String>();
+    private final PathPrefixMapper pathMapper;
+
+    public SourceFileSet(final Collection<File> files) {
+        this(files, new PathPrefixMapper(new String[0]));
+    }
+
+    public SourceFileSet(final Collection<File> files,
+            final PathPrefixMapper mapper) {
+        pathMapper = mapper;
+        for (final File file : files) {
+            paths.add(ObjectiveCResourceResolver.normalize(file.getPath()));
+            try {
+                paths.add(file.getCanonicalPath());
+            } catch (final IOException e) {
+                // the absolute path is enough
+            }
+        }
+    }
+
+    public boolean contains(final String path) {
+        return path != null
+                && paths.contains(ObjectiveCResourceResolver
+                        .normalize(pathMapper.map(path)));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.util.List;
+
+import org.sonar.api.rules.Rule;
+
+/**
+ * What the Squid sensor saves for one source file: its measures, the
+ * complexity of each of its functions and its check messages. It is built
+ * either from a scanned file or from the result cache.
+ */
+final class SquidFileMeasures {
+
+    private final String path;
+    private final double[] measures;
+    private final double[] functionComplexities;
+    private final List<Message> messages;
+
+    /**
+     * @param measures values of {@link SquidMeasuresPersistor#METRICS}, in
+     *            the same order.
+     */
+    public SquidFileMeasures(final String path, final double[] measures,
+            final double[] functionComplexities, final List<Message> messages) {
+        this.path = path;
+        this.measures = measures;
+        this.functionComplexities = functionComplexities;
+        this.messages = messages;
+    }
+
+    public String getPath() {
+        return path;
+    }
+
+    public double[] getMeasures() {
+        return measures;
+    }
+
+    public double[] getFunctionComplexities() {
+        return functionComplexities;
+    }
+
+    public List<Message> getMessages() {
+        return messages;
+    }
+
+    static final class Message {
+
+        private final Rule rule;
+        private final Integer line;
+        private final String text;
+
+        public Message(final Rule rule, final Integer line, final String text) {
+            this.rule = rule;
+            this.line = line;
+            this.text = text;
+        }
+
+        public Rule getRule() {
+            return rule;
+        }
+
+        public Integer getLine() {
+            return line;
+        }
+
+        public String getText() {
+            return text;
+        }
+
+    }
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.checks.AnnotationCheckFactory;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Metric;
+import org.sonar.api.measures.PersistenceMode;
+import org.sonar.api.measures.RangeDistributionBuilder;
+import org.sonar.api.resources.File;
+import org.sonar.api.resources.Project;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.Violation;
+import org.sonar.objectivec.api.ObjectiveCMetric;
+import org.sonar.squid.api.CheckMessage;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.api.SourceFunction;
+
+/**
+ * Saves the measures, distributions and violations of the Squid source files.
+ * The functions of a file are found by walking the subtree of that file only,
+ * so that saving a project is linear in its size. Files are first turned into
+ * {@link SquidFileMeasures}, which can also come from the result cache.
+ */
+final class SquidMeasuresPersistor {
+    private static final Number[] FUNCTIONS_DISTRIB_BOTTOM_LIMITS = { 1, 2, 4,
+            6, 8, 10, 12, 20, 30 };
+    private static final Number[] FILES_DISTRIB_BOTTOM_LIMITS = { 0, 5, 10,
+            20, 30, 60, 90 };
+
+    static final Metric[] METRICS = { CoreMetrics.FILES, CoreMetrics.LINES,
+            CoreMetrics.NCLOC, CoreMetrics.FUNCTIONS, CoreMetrics.STATEMENTS,
+            CoreMetrics.COMPLEXITY, CoreMetrics.COMMENT_BLANK_LINES,
+            CoreMetrics.COMMENT_LINES };
+    private static final ObjectiveCMetric[] SQUID_METRICS = {
+            ObjectiveCMetric.FILES, ObjectiveCMetric.LINES,
+            ObjectiveCMetric.LINES_OF_CODE, ObjectiveCMetric.FUNCTIONS,
+            ObjectiveCMetric.STATEMENTS, ObjectiveCMetric.COMPLEXITY,
+            ObjectiveCMetric.COMMENT_BLANK_LINES,
+            ObjectiveCMetric.COMMENT_LINES };
+    private static final int COMPLEXITY_INDEX = 5;
+
+    private final Project project;
+    private final SensorContext context;
+    private final Collection<AnnotationCheckFactory> annotationCheckFactories;
+    private final ObjectiveCResourceResolver resourceResolver;
+
+    public SquidMeasuresPersistor(final Project p, final SensorContext c,
+            final Collection<AnnotationCheckFactory> checkFactories) {
+        this(p, c, checkFactories, new ObjectiveCResourceResolver());
+    }
+
+    public SquidMeasuresPersistor(final Project p, final SensorContext c,
+            final Collection<AnnotationCheckFactory> checkFactories,
+            final ObjectiveCResourceResolver resolver) {
+        project = p;
+        context = c;
+        annotationCheckFactories = checkFactories;
+        resourceResolver = resolver;
+    }
+
+    public void saveMeasures(final Collection<SourceCode> squidSourceFiles) {
+        for (final SourceCode squidSourceFile : squidSourceFiles) {
+            saveMeasuresForFile((SourceFile) squidSourceFile);
+        }
+    }
+
+    public void saveMeasuresForFile(final SourceFile squidFile) {
+        save(measure(squidFile));
+    }
+
+    public SquidFileMeasures measure(final SourceFile squidFile) {
+        final double[] measures = new double[SQUID_METRICS.length];
+        for (int i = 0; i < SQUID_METRICS.length; i++) {
+            measures[i] = squidFile.getDouble(SQUID_METRICS[i]);
+        }
+        final List<Double> functionComplexities = new ArrayList<Double>();
+        addFunctionsComplexity(functionComplexities, squidFile);
+        return new SquidFileMeasures(squidFile.getKey(), measures,
+                toArray(functionComplexities), messages(squidFile));
+    }
+
+    public void save(final SquidFileMeasures measures) {
+        final File sonarFile = resourceResolver.fromIOFile(
+                measures.getPath(), project);
+
+        saveFilesComplexityDistribution(sonarFile, measures);
+        saveFunctionsComplexityDistribution(sonarFile, measures);
+        saveMeasures(sonarFile, measures);
+        saveViolations(sonarFile, measures);
+    }
+
+    private void saveMeasures(final File sonarFile,
+            final SquidFileMeasures measures) {
+        for (int i = 0; i < METRICS.length; i++) {
+            context.saveMeasure(sonarFile, METRICS[i],
+                    measures.getMeasures()[i]);
+        }
+    }
+
+    private void saveFunctionsComplexityDistribution(final File sonarFile,
+            final SquidFileMeasures measures) {
+        final RangeDistributionBuilder complexityDistribution = new RangeDistributionBuilder(
+                CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION,
+                FUNCTIONS_DISTRIB_BOTTOM_LIMITS);
+        for (final double complexity : measures.getFunctionComplexities()) {
+            complexityDistribution.add(complexity);
+        }
+        context.saveMeasure(sonarFile, complexityDistribution.build()
+                .setPersistenceMode(PersistenceMode.MEMORY));
+    }
+
+    /**
+     * Same functions as an index search by parent and by type, nested
+     * functions included, without going through the whole index.
+     */
+    private void addFunctionsComplexity(
+            final List<Double> functionComplexities, final SourceCode parent) {
+        if (parent.hasChildren()) {
+            for (final SourceCode child : parent.getChildren()) {
+                if (child instanceof SourceFunction) {
+                    functionComplexities.add(child
+                            .getDouble(ObjectiveCMetric.COMPLEXITY));
+                }
+                addFunctionsComplexity(functionComplexities, child);
+            }
+        }
+    }
+
+    private static double[] toArray(final List<Double> values) {
+        final double[] array = new double[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+
+    private void saveFilesComplexityDistribution(final File sonarFile,
+            final SquidFileMeasures measures) {
+        final RangeDistributionBuilder complexityDistribution = new RangeDistributionBuilder(
+                CoreMetrics.FILE_COMPLEXITY_DISTRIBUTION,
+                FILES_DISTRIB_BOTTOM_LIMITS);
+        complexityDistribution.add(measures.getMeasures()[COMPLEXITY_INDEX]);
+        context.saveMeasure(sonarFile, complexityDistribution.build()
+                .setPersistenceMode(PersistenceMode.MEMORY));
+    }
+
+    private List<SquidFileMeasures.Message> messages(final SourceFile squidFile) {
+        final List<SquidFileMeasures.Message> messages = new ArrayList<SquidFileMeasures.Message>();
+        final Collection<CheckMessage> checkMessages = squidFile.getCheckMessages();
+        if (checkMessages != null) {
+            for (final CheckMessage message : checkMessages) {
+                messages.add(new SquidFileMeasures.Message(
+                        activeRule(message.getChecker()), message.getLine(),
+                        message.getText(Locale.ENGLISH)));
+            }
+        }
+        return messages;
+    }
+
+    private void saveViolations(final File sonarFile,
+            final SquidFileMeasures measures) {
+        for (final SquidFileMeasures.Message message : measures.getMessages()) {
+            final Violation violation = Violation
+                    .create(message.getRule(), sonarFile)
+                    .setLineId(message.getLine())
+                    .setMessage(message.getText());
+            context.saveViolation(violation);
+        }
+    }
+
+    private Rule activeRule(final Object check) {
+        for (final AnnotationCheckFactory annotationCheckFactory : annotationCheckFactories) {
+            final Rule rule = annotationCheckFactory.getActiveRule(check);
+            if (rule != null) {
+                return rule;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,399 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+
+import org.slf4j.LoggerFactory;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.rules.ActiveRule;
+import org.sonar.api.rules.ActiveRuleParam;
+import org.sonar.objectivec.ObjectiveCAstScanner;
+import org.sonar.objectivec.ObjectiveCConfiguration;
+import org.sonar.objectivec.checks.CheckList;
+import org.sonar.objectivec.lexer.ObjectiveCChannel;
+import org.sonar.objectivec.lexer.ObjectiveCLexer;
+import org.sonar.objectivec.metrics.ObjectiveCMetricsVisitor;
+import org.sonar.objectivec.parser.ObjectiveCGrammarImpl;
+
+import com.google.common.io.Closeables;
+
+/**
+ * On-disk cache of the Squid results of each source file, keyed by the
+ * SHA-1 of the file content. The whole cache is tied to a fingerprint of the
+ * plugin version, the active Squid rules and the configuration, and is
+ * dropped as soon as any of them changes. Entries are kept serialized in
+ * memory and only decoded on a hit. The cache is rewritten at the end of
+ * each analysis with the files of that analysis only.
+ */
+final class SquidResultCache {
+
+    private static final int MAGIC = 0x4F424A43;
+    private static final int FORMAT_VERSION = 1;
+    private static final int HASH_LENGTH = 20;
+    private static final int NO_LINE = -1;
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final String BUILD_RESOURCE = "/org/sonar/plugins/objectivec/build.properties";
+
+    private final File file;
+    private final String fingerprint;
+    private final RulesProfile profile;
+    private final Map<String, byte[]> previousEntries = new HashMap<String, byte[]>();
+    private final Map<String, byte[]> entries = new HashMap<String, byte[]>();
+    private final Map<String, byte[]> pendingHashes = new HashMap<String, byte[]>();
+    private int hits;
+    private int misses;
+
+    /**
+     * @param profile resolves the rules of the cached check messages.
+     */
+    public SquidResultCache(final File file, final String fingerprint,
+            final RulesProfile profile) {
+        this.file = file;
+        this.fingerprint = fingerprint;
+        this.profile = profile;
+    }
+
+    /**
+     * Loads the entries written by the previous analysis, if it had the same
+     * fingerprint. An unreadable cache is ignored.
+     */
+    public void load() {
+        if (!file.isFile()) {
+            return;
+        }
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(
+                    new FileInputStream(file)));
+            if (input.readInt() != MAGIC
+                    || input.readInt() != FORMAT_VERSION
+                    || !fingerprint.equals(input.readUTF())) {
+                return;
+            }
+            final int size = input.readInt();
+            for (int i = 0; i < size; i++) {
+                final String path = input.readUTF();
+                final byte[] entry = new byte[input.readInt()];
+                input.readFully(entry);
+                previousEntries.put(path, entry);
+            }
+        } catch (final IOException e) {
+            LoggerFactory.getLogger(getClass()).warn(
+                    "Unable to read the Squid result cache " + file, e);
+            previousEntries.clear();
+        } finally {
+            Closeables.closeQuietly(input);
+        }
+    }
+
+    /**
+     * @return the cached results of the file, or null when the file is not
+     *         cached or its content changed. The file is then expected to be
+     *         scanned and its results {@link #put}.
+     */
+    public synchronized SquidFileMeasures get(final File sourceFile) {
+        final String path = sourceFile.getAbsolutePath();
+        byte[] hash;
+        try {
+            hash = hash(sourceFile);
+        } catch (final IOException e) {
+            misses++;
+            return null;
+        }
+        final byte[] entry = previousEntries.remove(path);
+        SquidFileMeasures measures = null;
+        if (entry != null && hashEquals(entry, hash)) {
+            try {
+                measures = decode(path, entry);
+            } catch (final IOException e) {
+                measures = null;
+            }
+        }
+        if (measures == null) {
+            misses++;
+            pendingHashes.put(path, hash);
+        } else {
+            hits++;
+            entries.put(path, entry);
+        }
+        return measures;
+    }
+
+    public synchronized void put(final SquidFileMeasures measures) {
+        final String path = new File(measures.getPath()).getAbsolutePath();
+        byte[] hash = pendingHashes.remove(path);
+        try {
+            if (hash == null) {
+                hash = hash(new File(path));
+            }
+            entries.put(path, encode(hash, measures));
+        } catch (final IOException e) {
+            LoggerFactory.getLogger(getClass()).debug(
+                    "Unable to cache the Squid results of {}", path, e);
+        }
+    }
+
+    /**
+     * Replaces the cache file with the entries of this analysis.
+     */
+    public synchronized void save() throws IOException {
+        LoggerFactory.getLogger(getClass()).info(
+                "Squid result cache: {} hits, {} misses", hits, misses);
+        file.getParentFile().mkdirs();
+        final File temporary = new File(file.getPath() + ".tmp");
+        final DataOutputStream output = new DataOutputStream(
+                new BufferedOutputStream(new FileOutputStream(temporary)));
+        try {
+            output.writeInt(MAGIC);
+            output.writeInt(FORMAT_VERSION);
+            output.writeUTF(fingerprint);
+            output.writeInt(entries.size());
+            for (final Map.Entry<String, byte[]> entry : entries.entrySet()) {
+                output.writeUTF(entry.getKey());
+                output.writeInt(entry.getValue().length);
+                output.write(entry.getValue());
+            }
+        } finally {
+            Closeables.closeQuietly(output);
+        }
+        if ((!file.delete() && file.exists()) || !temporary.renameTo(file)) {
+            throw new IOException("Unable to replace the Squid result cache "
+                    + file);
+        }
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    private static byte[] encode(final byte[] hash,
+            final SquidFileMeasures measures) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream output = new DataOutputStream(bytes);
+        output.write(hash);
+        writeDoubles(output, measures.getMeasures());
+        writeDoubles(output, measures.getFunctionComplexities());
+        output.writeInt(measures.getMessages().size());
+        for (final SquidFileMeasures.Message message : measures.getMessages()) {
+            if (message.getRule() == null) {
+                throw new IOException("No active rule for message "
+                        + message.getText());
+            }
+            output.writeUTF(message.getRule().getKey());
+            output.writeInt(message.getLine() == null ? NO_LINE : message
+                    .getLine());
+            output.writeUTF(message.getText());
+        }
+        output.flush();
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return null when a cached message refers to a rule which is no longer
+     *         active.
+     */
+    private SquidFileMeasures decode(final String path, final byte[] entry)
+            throws IOException {
+        final DataInputStream input = new DataInputStream(
+                new ByteArrayInputStream(entry, HASH_LENGTH, entry.length
+                        - HASH_LENGTH));
+        final double[] measures = readDoubles(input);
+        final double[] functionComplexities = readDoubles(input);
+        final int size = input.readInt();
+        final List<SquidFileMeasures.Message> messages = new ArrayList<SquidFileMeasures.Message>(
+                size);
+        for (int i = 0; i < size; i++) {
+            final ActiveRule activeRule = profile.getActiveRule(
+                    CheckList.REPOSITORY_KEY, input.readUTF());
+            final int line = input.readInt();
+            final String text = input.readUTF();
+            if (activeRule == null) {
+                return null;
+            }
+            messages.add(new SquidFileMeasures.Message(activeRule.getRule(),
+                    line == NO_LINE ? null : line, text));
+        }
+        return new SquidFileMeasures(path, measures, functionComplexities,
+                messages);
+    }
+
+    private static void writeDoubles(final DataOutputStream output,
+            final double[] values) throws IOException {
+        output.writeInt(values.length);
+        for (final double value : values) {
+            output.writeDouble(value);
+        }
+    }
+
+    private static double[] readDoubles(final DataInputStream input)
+            throws IOException {
+        final double[] values = new double[input.readInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = input.readDouble();
+        }
+        return values;
+    }
+
+    private static boolean hashEquals(final byte[] entry, final byte[] hash) {
+        return entry.length >= HASH_LENGTH
+                && Arrays.equals(Arrays.copyOf(entry, HASH_LENGTH), hash);
+    }
+
+    static byte[] hash(final File file) throws IOException {
+        final MessageDigest digest = sha1();
+        final InputStream input = new FileInputStream(file);
+        try {
+            final byte[] buffer = new byte[READ_BUFFER_SIZE];
+            int read = input.read(buffer);
+            while (read != -1) {
+                digest.update(buffer, 0, read);
+                read = input.read(buffer);
+            }
+        } finally {
+            Closeables.closeQuietly(input);
+        }
+        return digest.digest();
+    }
+
+    /**
+     * @return the plugin version stamped by Maven followed by a digest of the
+     *         bytecode of the classes producing the Squid results, or null
+     *         when the resource was not filtered or a class cannot be read:
+     *         results of another build of the plugin could not be told apart
+     *         then. Rebuilding unchanged analysis code keeps the cache.
+     */
+    static String buildVersion() {
+        final InputStream input = SquidResultCache.class
+                .getResourceAsStream(BUILD_RESOURCE);
+        if (input == null) {
+            return null;
+        }
+        try {
+            final Properties build = new Properties();
+            build.load(input);
+            final String version = build.getProperty("version");
+            if (version == null || version.startsWith("${")) {
+                return null;
+            }
+            return version + ' ' + toHex(hashAnalysisClasses());
+        } catch (final IOException e) {
+            return null;
+        } finally {
+            Closeables.closeQuietly(input);
+        }
+    }
+
+    private static byte[] hashAnalysisClasses() throws IOException {
+        final List<Class> classes = new ArrayList<Class>(Arrays.<Class> asList(
+                ObjectiveCAstScanner.class, ObjectiveCLexer.class,
+                ObjectiveCChannel.class, ObjectiveCGrammarImpl.class,
+                ObjectiveCMetricsVisitor.class));
+        classes.addAll(CheckList.getChecks());
+        final MessageDigest digest = sha1();
+        final byte[] buffer = new byte[READ_BUFFER_SIZE];
+        for (final Class analysisClass : classes) {
+            final InputStream input = analysisClass.getResourceAsStream(
+                    analysisClass.getSimpleName() + ".class");
+            if (input == null) {
+                throw new IOException("Missing bytecode of " + analysisClass);
+            }
+            try {
+                digest.update(analysisClass.getName().getBytes("UTF-8"));
+                int read = input.read(buffer);
+                while (read != -1) {
+                    digest.update(buffer, 0, read);
+                    read = input.read(buffer);
+                }
+            } finally {
+                Closeables.closeQuietly(input);
+            }
+        }
+        return digest.digest();
+    }
+
+    /**
+     * Everything but the file content that the Squid results depend on.
+     */
+    static String fingerprint(final String pluginVersion,
+            final RulesProfile profile, final ObjectiveCConfiguration conf) {
+        final List<String> rules = new ArrayList<String>();
+        for (final ActiveRule activeRule : profile
+                .getActiveRulesByRepository(CheckList.REPOSITORY_KEY)) {
+            final StringBuilder rule = new StringBuilder(activeRule.getRuleKey())
+                    .append(':').append(activeRule.getSeverity());
+            final List<String> params = new ArrayList<String>();
+            for (final ActiveRuleParam param : activeRule.getActiveRuleParams()) {
+                params.add(param.getKey() + '=' + param.getValue());
+            }
+            Collections.sort(params);
+            rules.add(rule.append(params).toString());
+        }
+        Collections.sort(rules);
+        final String fingerprint = pluginVersion + '|' + rules + '|'
+                + conf.getCharset().name() + '|'
+                + conf.getIgnoreHeaderComments();
+        try {
+            return toHex(sha1().digest(fingerprint.getBytes("UTF-8")));
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(final byte[] bytes) {
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static MessageDigest sha1() {
+        try {
+            return MessageDigest.getInstance("SHA-1");
+        } catch (final NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
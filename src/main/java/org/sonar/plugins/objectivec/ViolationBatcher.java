@@ -0,0 +1,78 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.rules.Violation;
+
+/**
+ * Hands violations over to the sensor context in batches of bounded size
+ * while a report is still being parsed, so that memory does not grow with
+ * the size of the report. Batches are saved under the lock of the context,
+ * which is not thread safe.
+ */
+final class ViolationBatcher implements OCLintParser.ViolationHandler {
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final SensorContext context;
+    private final int batchSize;
+    private final List<Violation> batch;
+    private long saved;
+
+    public ViolationBatcher(final SensorContext c) {
+        this(c, DEFAULT_BATCH_SIZE);
+    }
+
+    public ViolationBatcher(final SensorContext c, final int size) {
+        context = c;
+        batchSize = size;
+        batch = new ArrayList<Violation>(size);
+    }
+
+    public void handle(final Violation violation) {
+        batch.add(violation);
+        if (batch.size() >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Saves the violations of the current batch.
+     */
+    public void flush() {
+        synchronized (context) {
+            for (final Violation violation : batch) {
+                context.saveViolation(violation);
+            }
+        }
+        saved += batch.size();
+        batch.clear();
+    }
+
+    /**
+     * @return the number of violations saved so far.
+     */
+    public long getSaved() {
+        return saved;
+    }
+}
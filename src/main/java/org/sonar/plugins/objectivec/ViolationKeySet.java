@@ -0,0 +1,110 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import org.sonar.api.rules.Violation;
+
+/**
+ * Remembers the file, line and rule of the violations read from several
+ * reports, so that each of them is saved once. Every repeat is dropped,
+ * whether it comes from the same report or from another one: the number of
+ * violations saved then does not depend on the order in which concurrently
+ * parsed reports are read. Each key is stored as a 64 bits hash in an open
+ * addressing array rather than as one entry object per violation. Distinct
+ * keys sharing the same hash are not told apart, which is unlikely enough
+ * with 64 bits to be ignored. Safe to use from several threads.
+ */
+final class ViolationKeySet {
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final long EMPTY = 0L;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private long[] hashes = new long[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * @return true when the violation must be kept, false when its key was
+     *         already read.
+     */
+    public boolean add(final Violation violation) {
+        return add(hash(violation));
+    }
+
+    synchronized boolean add(final long hash) {
+        int slot = slotOf(hash, hashes);
+        if (hashes[slot] == hash) {
+            return false;
+        }
+        if (2 * (size + 1) > hashes.length) {
+            grow();
+            slot = slotOf(hash, hashes);
+        }
+        hashes[slot] = hash;
+        size++;
+        return true;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private void grow() {
+        final long[] oldHashes = hashes;
+        hashes = new long[oldHashes.length * 2];
+        for (final long hash : oldHashes) {
+            if (hash != EMPTY) {
+                hashes[slotOf(hash, hashes)] = hash;
+            }
+        }
+    }
+
+    /**
+     * @return the slot holding the hash, or the empty slot where it belongs.
+     */
+    private static int slotOf(final long hash, final long[] table) {
+        final int mask = table.length - 1;
+        int slot = (int) (hash ^ (hash >>> 32)) & mask;
+        while (table[slot] != EMPTY && table[slot] != hash) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    static long hash(final Violation violation) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = hash(hash, violation.getResource().getKey());
+        hash = hash(hash, violation.getRule().getKey());
+        final Integer line = violation.getLineId();
+        hash = (hash ^ (line == null ? -1 : line.intValue())) * FNV_PRIME;
+        // 0 marks the empty slots
+        return hash == EMPTY ? 1L : hash;
+    }
+
+    private static long hash(final long seed, final String value) {
+        long hash = seed;
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        // separates the strings, so that ("ab", "c") differs from ("a", "bc")
+        return (hash ^ 0xffff) * FNV_PRIME;
+    }
+
+}
@@ -24,22 +24,54 @@ import java.nio.charset.Charset;
 import net.sourceforge.pmd.cpd.Tokenizer;
 
 import org.sonar.api.batch.AbstractCpdMapping;
+import org.sonar.api.config.Settings;
 import org.sonar.api.resources.Language;
 import org.sonar.api.resources.ProjectFileSystem;
+import org.sonar.objectivec.ObjectiveCConfiguration;
+import org.sonar.plugins.objectivec.ObjectiveCPlugin;
+import org.sonar.plugins.objectivec.ObjectiveCTokenCache;
 import org.sonar.plugins.objectivec.core.ObjectiveC;
 
 public class ObjectiveCCpdMapping extends AbstractCpdMapping {
 
+    public static final String NORMALIZE_KEY = ObjectiveCPlugin.PROPERTY_PREFIX + ".cpd.normalizeTokens";
+    public static final String DEFAULT_NORMALIZE = "false";
+
     private final ObjectiveC language;
     private final Charset charset;
+    private final ObjectiveCTokenCache tokenCache;
+    private final Settings conf;
+    private ObjectiveCTokenizer tokenizer;
 
     public ObjectiveCCpdMapping(ObjectiveC language, ProjectFileSystem fs) {
+        this(language, fs, new ObjectiveCTokenCache());
+    }
+
+    public ObjectiveCCpdMapping(ObjectiveC language, ProjectFileSystem fs, ObjectiveCTokenCache tokenCache) {
+        this(language, fs, tokenCache, null);
+    }
+
+    public ObjectiveCCpdMapping(ObjectiveC language, ProjectFileSystem fs, ObjectiveCTokenCache tokenCache, Settings conf) {
         this.language = language;
         this.charset = fs.getSourceCharset();
+        this.tokenCache = tokenCache;
+        this.conf = conf;
+    }
+
+    /**
+     * The tokenizer is created once, so that its lexers and its table of
+     * token images are shared by all the files of the analysis.
+     */
+    public synchronized Tokenizer getTokenizer() {
+        if (tokenizer == null) {
+            tokenizer = new ObjectiveCTokenizer(new ObjectiveCConfiguration(charset), tokenCache, normalize(),
+                    new TokenImageTable());
+        }
+        return tokenizer;
     }
 
-    public Tokenizer getTokenizer() {
-        return new ObjectiveCTokenizer(charset);
+    private boolean normalize() {
+        return conf != null && conf.getBoolean(NORMALIZE_KEY);
     }
 
     public Language getLanguage() {
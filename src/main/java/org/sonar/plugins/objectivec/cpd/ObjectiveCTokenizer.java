@@ -30,23 +30,64 @@ import net.sourceforge.pmd.cpd.Tokenizer;
 import net.sourceforge.pmd.cpd.Tokens;
 
 import org.sonar.objectivec.ObjectiveCConfiguration;
+import org.sonar.objectivec.api.ObjectiveCTokenType;
 import org.sonar.objectivec.lexer.ObjectiveCLexer;
+import org.sonar.objectivec.lexer.SourceLoader;
+import org.sonar.objectivec.lexer.TokenCache;
 
+import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
 import com.sonar.sslr.impl.Lexer;
 
+/**
+ * Hands the tokens of a file over to CPD, taking them from the token cache
+ * filled by the Squid sensor when possible. Each thread lexes with a lexer
+ * of its own, reused from one file to the next, and token images go through
+ * a shared {@link TokenImageTable}. When normalizing, identifiers and
+ * literals are replaced by the name of their token type, so that methods
+ * differing only by names or constants are reported as duplicates.
+ */
 public class ObjectiveCTokenizer implements Tokenizer {
 
-    private final Charset charset;
+    private final TokenCache tokenCache;
+    private final SourceLoader sourceLoader;
+    private final boolean normalize;
+    private final TokenImageTable images;
+    private final ThreadLocal<Lexer> lexers;
 
     public ObjectiveCTokenizer(Charset charset) {
-        this.charset = charset;
+        this(charset, new TokenCache(0));
+    }
+
+    public ObjectiveCTokenizer(Charset charset, TokenCache tokenCache) {
+        this(new ObjectiveCConfiguration(charset), tokenCache);
+    }
+
+    public ObjectiveCTokenizer(ObjectiveCConfiguration conf, TokenCache tokenCache) {
+        this(conf, tokenCache, false, new TokenImageTable());
+    }
+
+    public ObjectiveCTokenizer(final ObjectiveCConfiguration conf, TokenCache tokenCache, boolean normalize,
+            TokenImageTable images) {
+        this.tokenCache = tokenCache;
+        this.sourceLoader = new SourceLoader(conf);
+        this.normalize = normalize;
+        this.images = images;
+        this.lexers = new ThreadLocal<Lexer>() {
+            @Override
+            protected Lexer initialValue() {
+                return ObjectiveCLexer.create(conf);
+            }
+        };
     }
 
     public void tokenize(SourceCode source, Tokens cpdTokens) throws IOException {
-        Lexer lexer = ObjectiveCLexer.create(new ObjectiveCConfiguration(charset));
         String fileName = source.getFileName();
-        List<Token> tokens = lexer.lex(new File(fileName));
+        List<Token> tokens = tokenCache.take(new File(fileName));
+        if (tokens == null) {
+            tokens = ObjectiveCLexer.lex(lexers.get(), sourceLoader, new File(fileName));
+        }
         for (Token token : tokens) {
             TokenEntry cpdToken = new TokenEntry(getTokenImage(token), fileName, token.getLine());
             cpdTokens.add(cpdToken);
@@ -55,7 +96,15 @@ public class ObjectiveCTokenizer implements Tokenizer {
     }
 
     private String getTokenImage(Token token) {
-        return token.getValue();
+        if (normalize && isNormalized(token.getType())) {
+            return token.getType().getName();
+        }
+        return images.intern(token.getValue());
+    }
+
+    private static boolean isNormalized(TokenType type) {
+        return type == GenericTokenType.IDENTIFIER || type == ObjectiveCTokenType.NUMERIC_LITERAL
+                || type == ObjectiveCTokenType.STRING_LITERAL || type == ObjectiveCTokenType.CHARACTER_LITERAL;
     }
 
 }
@@ -0,0 +1,52 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec.cpd;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Table of the token images handed to CPD, shared by the files of an
+ * analysis so that each distinct image is held by a single String however
+ * many tokens have it. Images are copied when first met, so that they do not
+ * keep the source text they were cut from. Safe to use from several
+ * threads.
+ */
+public class TokenImageTable {
+
+    private final ConcurrentMap<String, String> images = new ConcurrentHashMap<String, String>();
+
+    public String intern(String image) {
+        String interned = images.get(image);
+        if (interned == null) {
+            String copy = new String(image);
+            interned = images.putIfAbsent(copy, copy);
+            if (interned == null) {
+                interned = copy;
+            }
+        }
+        return interned;
+    }
+
+    public int size() {
+        return images.size();
+    }
+
+}
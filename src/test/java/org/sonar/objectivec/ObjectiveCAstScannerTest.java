@@ -26,9 +26,14 @@ import static org.junit.Assert.assertThat;
 import java.io.File;
 
 import org.junit.Test;
+import org.sonar.objectivec.api.ObjectiveCGrammar;
 import org.sonar.objectivec.api.ObjectiveCMetric;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceCodeSearchEngine;
 import org.sonar.squid.api.SourceFile;
 
+import com.sonar.sslr.squid.AstScanner;
+
 public class ObjectiveCAstScannerTest {
 
     @Test
@@ -52,4 +57,56 @@ public class ObjectiveCAstScannerTest {
         assertThat(file.getNoSonarTagLines().size(), is(1));
     }
 
+    @Test
+    public void functions() {
+        SourceFile file = ObjectiveCAstScanner.scanSingleFile(new File("src/test/resources/Metrics.m"));
+        assertThat(file.getInt(ObjectiveCMetric.FUNCTIONS), is(4));
+        assertThat(file.getChildren().size(), is(4));
+    }
+
+    @Test
+    public void statements() {
+        SourceFile file = ObjectiveCAstScanner.scanSingleFile(new File("src/test/resources/Metrics.m"));
+        assertThat(file.getInt(ObjectiveCMetric.STATEMENTS), is(12));
+    }
+
+    @Test
+    public void complexity() {
+        SourceFile file = ObjectiveCAstScanner.scanSingleFile(new File("src/test/resources/Metrics.m"));
+        assertThat(file.getInt(ObjectiveCMetric.COMPLEXITY), is(10));
+    }
+
+    @Test
+    public void fused_metrics_match_separate_visitors() {
+        for (boolean ignoreHeaderComments : new boolean[] {false, true}) {
+            ObjectiveCConfiguration conf = new ObjectiveCConfiguration();
+            conf.setIgnoreHeaderComments(ignoreHeaderComments);
+            for (String name : new String[] {"objcSample.h", "Profile.m", "Metrics.m"}) {
+                File file = new File("src/test/resources/" + name);
+                SourceCodeSearchEngine expectedIndex = scan(ObjectiveCAstScanner.createWithSeparateMetricVisitors(conf), file);
+                SourceCodeSearchEngine actualIndex = scan(ObjectiveCAstScanner.create(conf), file);
+                SourceFile expected = (SourceFile) expectedIndex.search(file.getAbsolutePath());
+                SourceFile actual = (SourceFile) actualIndex.search(file.getAbsolutePath());
+
+                for (ObjectiveCMetric metric : ObjectiveCMetric.values()) {
+                    assertThat(name + " " + metric, actual.getDouble(metric), is(expected.getDouble(metric)));
+                }
+                assertThat(actual.getNoSonarTagLines(), is(expected.getNoSonarTagLines()));
+                if (expected.hasChildren()) {
+                    for (SourceCode function : expected.getChildren()) {
+                        SourceCode actualFunction = actualIndex.search(function.getKey());
+                        for (ObjectiveCMetric metric : ObjectiveCMetric.values()) {
+                            assertThat(function.getKey() + " " + metric, actualFunction.getDouble(metric), is(function.getDouble(metric)));
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static SourceCodeSearchEngine scan(AstScanner<ObjectiveCGrammar> scanner, File file) {
+        scanner.scanFile(file);
+        return scanner.getIndex();
+    }
+
 }
@@ -0,0 +1,102 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.sonar.objectivec.api.ObjectiveCGrammar;
+import org.sonar.objectivec.api.ObjectiveCMetric;
+import org.sonar.objectivec.metrics.ObjectiveCMetricsVisitor;
+import org.sonar.squid.api.SourceProject;
+import org.sonar.squid.indexer.QueryByType;
+
+import com.sonar.sslr.squid.AstScanner;
+
+/**
+ * Compares the scan time with {@link ObjectiveCMetricsVisitor} and with one squid-bridge visitor per metric.
+ * Not a unit test: run it from the IDE or with
+ * <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.sonar.objectivec.ObjectiveCMetricsBenchmark</code>.
+ */
+public final class ObjectiveCMetricsBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+    private static final int SOURCE_COPIES = 200;
+
+    private ObjectiveCMetricsBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        File directory = new File(FileUtils.getTempDirectory(), "objectivec-metrics-benchmark");
+        try {
+            List<File> files = corpus(directory, new File("src/test/resources"));
+            ObjectiveCConfiguration conf = new ObjectiveCConfiguration();
+
+            for (int round = 0; round < 2; round++) {
+                report("separate visitors", files, conf, false);
+                report("fused visitor", files, conf, true);
+            }
+        } finally {
+            FileUtils.deleteQuietly(directory);
+        }
+    }
+
+    private static List<File> corpus(File directory, File sources) throws IOException {
+        List<File> files = new ArrayList<File>();
+        for (File source : sources.listFiles()) {
+            if (source.isFile()) {
+                for (int i = 0; i < SOURCE_COPIES; i++) {
+                    File copy = new File(directory, i + "-" + source.getName());
+                    FileUtils.copyFile(source, copy);
+                    files.add(copy);
+                }
+            }
+        }
+        return files;
+    }
+
+    private static void report(String name, List<File> files, ObjectiveCConfiguration conf, boolean fused) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            scan(files, conf, fused);
+        }
+        double linesOfCode = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            linesOfCode = scan(files, conf, fused);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format("%-20s %8d files %10.0f ncloc %10.2f ms/iteration", name, files.size(), linesOfCode,
+                elapsed / 1000000.0 / MEASURED_ITERATIONS));
+    }
+
+    private static double scan(List<File> files, ObjectiveCConfiguration conf, boolean fused) {
+        AstScanner<ObjectiveCGrammar> scanner = fused ? ObjectiveCAstScanner.create(conf)
+                : ObjectiveCAstScanner.createWithSeparateMetricVisitors(conf);
+        scanner.scanFiles(files);
+        return scanner.getIndex().search(new QueryByType(SourceProject.class)).iterator().next()
+                .getDouble(ObjectiveCMetric.LINES_OF_CODE);
+    }
+
+}
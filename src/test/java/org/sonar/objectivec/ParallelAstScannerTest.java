@@ -0,0 +1,145 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Test;
+import org.sonar.objectivec.api.ObjectiveCGrammar;
+import org.sonar.objectivec.api.ObjectiveCMetric;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceCodeSearchEngine;
+import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.api.SourceProject;
+import org.sonar.squid.indexer.QueryByType;
+
+import com.sonar.sslr.squid.SquidAstVisitor;
+
+public class ParallelAstScannerTest {
+
+    private static final List<File> FILES = Arrays.asList(new File("src/test/resources/objcSample.h"),
+            new File("src/test/resources/Profile.m"));
+
+    @Test
+    public void parallelScanGivesTheSameMeasuresAsASequentialScan() {
+        SourceCodeSearchEngine sequential = scan(1);
+        SourceCodeSearchEngine parallel = scan(2);
+
+        for (File file : FILES) {
+            SourceCode expected = sequential.search(file.getAbsolutePath());
+            SourceCode actual = parallel.search(file.getAbsolutePath());
+            for (ObjectiveCMetric metric : ObjectiveCMetric.values()) {
+                assertThat(actual.getDouble(metric), is(expected.getDouble(metric)));
+            }
+        }
+        SourceCode expectedProject = project(sequential);
+        SourceCode actualProject = project(parallel);
+        for (ObjectiveCMetric metric : ObjectiveCMetric.values()) {
+            assertThat(actualProject.getDouble(metric), is(expectedProject.getDouble(metric)));
+        }
+        assertThat(actualProject.getChildren().size(), is(FILES.size()));
+        for (SourceCode file : actualProject.getChildren()) {
+            assertThat(file.getParent(), sameInstance(actualProject));
+        }
+        assertThat(parallel.search(new QueryByType(SourceFile.class)).size(), is(FILES.size()));
+    }
+
+    @Test
+    public void projectMeasuresDoNotDependOnTheNumberOfThreads() {
+        List<File> files = Arrays.asList(new File("src/test/resources/objcSample.h"),
+                new File("src/test/resources/Profile.m"), new File("src/test/resources/Metrics.m"));
+        SourceCode expectedProject = project(scan(files, 1));
+
+        for (int threads = 2; threads <= files.size(); threads++) {
+            SourceCode actualProject = project(scan(files, threads));
+            for (ObjectiveCMetric metric : ObjectiveCMetric.values()) {
+                assertThat(metric + " with " + threads + " threads", actualProject.getDouble(metric),
+                        is(expectedProject.getDouble(metric)));
+            }
+        }
+    }
+
+    @Test
+    public void streamingScanHandsOverEveryFileWithTheSameMeasures() {
+        SourceCodeSearchEngine sequential = scan(1);
+        final Map<String, SourceFile> handled = new ConcurrentHashMap<String, SourceFile>();
+        ObjectiveCConfiguration conf = new ObjectiveCConfiguration();
+        conf.setThreads(2);
+
+        scanner(conf).scanFiles(FILES, new ParallelAstScanner.SourceFileHandler() {
+            public void handle(SourceFile sourceFile) {
+                handled.put(sourceFile.getKey(), sourceFile);
+            }
+        });
+
+        assertThat(handled.size(), is(FILES.size()));
+        for (File file : FILES) {
+            SourceCode expected = sequential.search(file.getAbsolutePath());
+            SourceCode actual = handled.get(file.getAbsolutePath());
+            for (ObjectiveCMetric metric : ObjectiveCMetric.values()) {
+                assertThat(actual.getDouble(metric), is(expected.getDouble(metric)));
+            }
+        }
+    }
+
+    @Test
+    public void partitionBalancesTheFilesOverTheThreads() {
+        List<List<File>> partitions = ParallelAstScanner.partition(FILES, 2);
+
+        assertThat(partitions.size(), is(2));
+        assertThat(partitions.get(0).size(), is(1));
+        assertThat(partitions.get(1).size(), is(1));
+    }
+
+    private static SourceCode project(SourceCodeSearchEngine index) {
+        Collection<SourceCode> projects = index.search(new QueryByType(SourceProject.class));
+        assertThat(projects.size(), is(1));
+        return projects.iterator().next();
+    }
+
+    private static SourceCodeSearchEngine scan(int threads) {
+        return scan(FILES, threads);
+    }
+
+    private static SourceCodeSearchEngine scan(List<File> files, int threads) {
+        ObjectiveCConfiguration conf = new ObjectiveCConfiguration();
+        conf.setThreads(threads);
+        return scanner(conf).scanFiles(files);
+    }
+
+    private static ParallelAstScanner scanner(ObjectiveCConfiguration conf) {
+        return new ParallelAstScanner(conf, new ParallelAstScanner.VisitorsFactory() {
+            @SuppressWarnings("unchecked")
+            public SquidAstVisitor<ObjectiveCGrammar>[] create() {
+                return new SquidAstVisitor[0];
+            }
+        });
+    }
+
+}
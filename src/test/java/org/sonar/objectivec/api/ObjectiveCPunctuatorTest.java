@@ -28,7 +28,7 @@ public class ObjectiveCPunctuatorTest {
 
     @Test
     public void test() {
-        assertThat(ObjectiveCPunctuator.values().length, is(48));
+        assertThat(ObjectiveCPunctuator.values().length, is(50));
     }
 
 }
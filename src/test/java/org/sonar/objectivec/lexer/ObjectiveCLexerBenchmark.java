@@ -0,0 +1,112 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec.lexer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import org.apache.commons.io.FileUtils;
+import org.sonar.objectivec.ObjectiveCConfiguration;
+
+import com.sonar.sslr.impl.Lexer;
+
+/**
+ * Compares the hand-written lexer with the former regular expression one,
+ * then reading files through {@link SourceLoader} with the reader of
+ * {@link Lexer#lex(File)}.
+ * Not a unit test: run it from the IDE or with
+ * <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.sonar.objectivec.lexer.ObjectiveCLexerBenchmark</code>.
+ */
+public final class ObjectiveCLexerBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 50;
+    private static final int SOURCE_COPIES = 200;
+
+    private ObjectiveCLexerBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String source = corpus(args.length > 0 ? new File(args[0]) : new File("src/test/resources/Profile.m"));
+        ObjectiveCConfiguration conf = new ObjectiveCConfiguration();
+
+        report("regexp", source, ObjectiveCLexer.createRegexpLexer(conf));
+        report("single-pass", source, ObjectiveCLexer.create(conf));
+
+        File file = File.createTempFile("corpus", ".m");
+        try {
+            FileUtils.writeStringToFile(file, source, "UTF-8");
+            ObjectiveCConfiguration utf8 = new ObjectiveCConfiguration(Charset.forName("UTF-8"));
+            report("lex(File)", file, ObjectiveCLexer.create(utf8), null);
+            report("loaded", file, ObjectiveCLexer.create(utf8), new SourceLoader(utf8));
+        } finally {
+            file.delete();
+        }
+    }
+
+    private static String corpus(File file) throws IOException {
+        String content = FileUtils.readFileToString(file, "UTF-8");
+        StringBuilder corpus = new StringBuilder(content.length() * SOURCE_COPIES);
+        for (int i = 0; i < SOURCE_COPIES; i++) {
+            corpus.append(content).append('\n');
+        }
+        return corpus.toString();
+    }
+
+    private static void report(String name, String source, Lexer lexer) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            lexer.lex(source);
+        }
+        int tokens = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            tokens = lexer.lex(source).size();
+        }
+        print(name, tokens, source.length(), System.nanoTime() - start);
+    }
+
+    /**
+     * @param loader null to read the file with the lexer itself.
+     */
+    private static void report(String name, File file, Lexer lexer, SourceLoader loader) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            lex(file, lexer, loader);
+        }
+        int tokens = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            tokens = lex(file, lexer, loader);
+        }
+        print(name, tokens, file.length(), System.nanoTime() - start);
+    }
+
+    private static int lex(File file, Lexer lexer, SourceLoader loader) throws IOException {
+        return loader == null ? lexer.lex(file).size() : ObjectiveCLexer.lex(lexer, loader, file).size();
+    }
+
+    private static void print(String name, int tokens, long length, long elapsed) {
+        double megaCharsPerSecond = (double) length * MEASURED_ITERATIONS / (elapsed / 1000.0);
+        System.out.println(String.format("%-12s %8d tokens %10.2f ms/iteration %8.2f MB/s", name, tokens,
+                elapsed / 1000000.0 / MEASURED_ITERATIONS, megaCharsPerSecond));
+    }
+
+}
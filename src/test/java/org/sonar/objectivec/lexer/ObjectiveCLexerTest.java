@@ -29,6 +29,9 @@ import java.util.List;
 
 import org.junit.BeforeClass;
 import org.junit.Test;
+import org.sonar.objectivec.api.ObjectiveCKeyword;
+import org.sonar.objectivec.api.ObjectiveCPunctuator;
+import org.sonar.objectivec.api.ObjectiveCTokenType;
 
 import com.sonar.sslr.api.GenericTokenType;
 import com.sonar.sslr.api.Token;
@@ -63,7 +66,12 @@ public class ObjectiveCLexerTest {
 
     @Test
     public void lexLineOfCode() {
-        assertThat(lexer.lex("[self init];"), hasToken("[self", GenericTokenType.LITERAL));
+        List<Token> tokens = lexer.lex("[self init];");
+        assertThat(tokens, hasToken("[", ObjectiveCPunctuator.LBRACKET));
+        assertThat(tokens, hasToken("self", GenericTokenType.IDENTIFIER));
+        assertThat(tokens, hasToken("init", GenericTokenType.IDENTIFIER));
+        assertThat(tokens, hasToken("]", ObjectiveCPunctuator.RBRACKET));
+        assertThat(tokens, hasToken(";", ObjectiveCPunctuator.SEMICOLON));
     }
 
     @Test
@@ -73,10 +81,63 @@ public class ObjectiveCLexerTest {
         assertThat(tokens, hasToken(GenericTokenType.EOF));
     }
 
+    @Test
+    public void lexKeywords() {
+        assertThat(lexer.lex("return"), hasToken("return", ObjectiveCKeyword.RETURN));
+        assertThat(lexer.lex("BOOL"), hasToken("BOOL", ObjectiveCKeyword.BOOL));
+        assertThat(lexer.lex("returned"), hasToken("returned", GenericTokenType.IDENTIFIER));
+    }
+
+    @Test
+    public void lexCompilerDirectives() {
+        assertThat(lexer.lex("@interface"), hasToken("@interface", ObjectiveCKeyword.AT_INTERFACE));
+        assertThat(lexer.lex("@end"), hasToken("@end", ObjectiveCKeyword.AT_END));
+        assertThat(lexer.lex("@YES"), hasToken("@", ObjectiveCPunctuator.AT));
+        assertThat(lexer.lex("@YES"), hasToken("YES", ObjectiveCKeyword.YES));
+    }
+
+    @Test
+    public void lexPunctuatorsWithTheLongestMatch() {
+        assertThat(lexer.lex("a <<= b"), hasToken("<<=", ObjectiveCPunctuator.LTLTEQ));
+        assertThat(lexer.lex("a->b"), hasToken("->", ObjectiveCPunctuator.MINUSLT));
+        assertThat(lexer.lex("a / b"), hasToken("/", ObjectiveCPunctuator.SLASH));
+        assertThat(lexer.lex("self.name"), hasToken(".", ObjectiveCPunctuator.DOT));
+    }
+
+    @Test
+    public void lexStringLiterals() {
+        assertThat(lexer.lex("\"a \\\" b\""), hasToken("\"a \\\" b\"", ObjectiveCTokenType.STRING_LITERAL));
+        assertThat(lexer.lex("@\"a // b\""), hasToken("@\"a // b\"", ObjectiveCTokenType.STRING_LITERAL));
+        assertThat(lexer.lex("'\\n'"), hasToken("'\\n'", ObjectiveCTokenType.CHARACTER_LITERAL));
+    }
+
+    @Test
+    public void lexNumericLiterals() {
+        assertThat(lexer.lex("42"), hasToken("42", ObjectiveCTokenType.NUMERIC_LITERAL));
+        assertThat(lexer.lex("0xFFu"), hasToken("0xFFu", ObjectiveCTokenType.NUMERIC_LITERAL));
+        assertThat(lexer.lex("1.5e-3f"), hasToken("1.5e-3f", ObjectiveCTokenType.NUMERIC_LITERAL));
+        assertThat(lexer.lex(".5"), hasToken(".5", ObjectiveCTokenType.NUMERIC_LITERAL));
+    }
+
+    @Test
+    public void lexPreprocessorLines() {
+        assertThat(lexer.lex("#import <UIKit/UIKit.h>"), hasToken("#import <UIKit/UIKit.h>", ObjectiveCTokenType.PREPROCESSOR));
+        assertThat(lexer.lex("#define A(x) \\\n  (x)\nint a;"), hasToken("#define A(x) \\\n  (x)", ObjectiveCTokenType.PREPROCESSOR));
+        assertThat(lexer.lex("  #pragma mark // comment"), hasComment("// comment"));
+        assertThat(lexer.lex("a # b"), hasToken("#", GenericTokenType.UNKNOWN_CHAR));
+    }
+
+    @Test
+    public void lexUnterminatedMultiLinesComment() {
+        List<Token> tokens = lexer.lex("/* not closed");
+        assertThat(tokens, hasToken("/", ObjectiveCPunctuator.SLASH));
+        assertThat(tokens, hasToken("closed", GenericTokenType.IDENTIFIER));
+    }
+
     @Test
     public void lexSampleFile() {
         List<Token> tokens = lexer.lex(new File("src/test/resources/objcSample.h"));
-        assertThat(tokens.size(), equalTo(16));
+        assertThat(tokens.size(), equalTo(20));
         assertThat(tokens, hasToken(GenericTokenType.EOF));
     }
 
@@ -0,0 +1,112 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec.lexer;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.objectivec.ObjectiveCConfiguration;
+
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.impl.Lexer;
+
+public class SourceLoaderTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void loadReadsAsciiSources() throws IOException {
+        File file = givenAFile("a.m", "[self init];\n");
+
+        assertThat(new SourceLoader(UTF_8, Long.MAX_VALUE).load(file).toString(), equalTo("[self init];\n"));
+    }
+
+    @Test
+    public void loadDecodesCharactersAfterTheAsciiPrefix() throws IOException {
+        File file = givenAFile("a.m", "NSString *s = @\"café ☃\";");
+
+        assertThat(new SourceLoader(UTF_8, Long.MAX_VALUE).load(file).toString(), equalTo("NSString *s = @\"café ☃\";"));
+    }
+
+    @Test
+    public void loadMapsFilesAboveTheThreshold() throws IOException {
+        File file = givenAFile("a.m", "int café = 0;");
+
+        assertThat(new SourceLoader(UTF_8, 0).load(file).toString(), equalTo("int café = 0;"));
+    }
+
+    @Test
+    public void loadReadsEmptyFiles() throws IOException {
+        File file = givenAFile("a.m", "");
+
+        assertThat(new SourceLoader(UTF_8, 0).load(file).length(), is(0));
+        assertThat(new SourceLoader(UTF_8, Long.MAX_VALUE).load(file).length(), is(0));
+    }
+
+    @Test
+    public void onlyCharsetsKeepingAsciiAsIsTakeTheFastPath() {
+        assertThat(SourceLoader.isAsciiCompatible(UTF_8), is(true));
+        assertThat(SourceLoader.isAsciiCompatible(Charset.forName("ISO-8859-1")), is(true));
+        assertThat(SourceLoader.isAsciiCompatible(Charset.forName("UTF-16")), is(false));
+    }
+
+    @Test
+    public void loadStringDecodesNonAsciiSources() throws IOException {
+        File file = givenAFile("a.m", "NSString *s = @\"café ☃\";");
+
+        assertThat(new SourceLoader(UTF_8, 0).loadString(file), equalTo("NSString *s = @\"café ☃\";"));
+    }
+
+    @Test
+    public void lexGivesTheSameTokensAsLexingTheFile() throws IOException {
+        File file = new File("src/test/resources/Profile.m");
+        Lexer lexer = ObjectiveCLexer.create(new ObjectiveCConfiguration(UTF_8));
+
+        List<Token> expected = lexer.lex(file);
+        List<Token> actual = ObjectiveCLexer.lex(lexer, new SourceLoader(UTF_8, 0), file);
+
+        assertThat(actual.size(), is(expected.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertThat(actual.get(i).getValue(), equalTo(expected.get(i).getValue()));
+            assertThat(actual.get(i).getType(), equalTo(expected.get(i).getType()));
+            assertThat(actual.get(i).getLine(), is(expected.get(i).getLine()));
+        }
+    }
+
+    private File givenAFile(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        FileUtils.writeStringToFile(file, content, "UTF-8");
+        return file;
+    }
+
+}
@@ -0,0 +1,120 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec.lexer;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import com.sonar.sslr.api.Token;
+
+public class TokenCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void takeReturnsTheStoredTokensOnce() throws IOException {
+        File file = givenAFile("a.m", "[self init];");
+        List<Token> tokens = ObjectiveCLexer.create().lex(file);
+        TokenCache cache = new TokenCache(1024 * 1024);
+
+        cache.put(file, tokens);
+
+        assertThat(cache.take(file), sameInstance(tokens));
+        assertThat(cache.take(file), nullValue());
+    }
+
+    @Test
+    public void takeReturnsNullWhenTheFileChanged() throws IOException {
+        File file = givenAFile("a.m", "[self init];");
+        TokenCache cache = new TokenCache(1024 * 1024);
+
+        cache.put(file, ObjectiveCLexer.create().lex(file));
+        FileUtils.writeStringToFile(file, "[self dealloc];");
+
+        assertThat(cache.take(file), nullValue());
+    }
+
+    @Test
+    public void takeReturnsNullWhenTheFileWasTouched() throws IOException {
+        File file = givenAFile("a.m", "[self init];");
+        TokenCache cache = new TokenCache(1024 * 1024);
+
+        cache.put(file, ObjectiveCLexer.create().lex(file));
+        file.setLastModified(file.lastModified() + 2000);
+
+        assertThat(cache.take(file), nullValue());
+    }
+
+    @Test
+    public void putEvictsTheEldestEntriesOverTheMemoryBudget() throws IOException {
+        File first = givenAFile("a.m", "[self init];");
+        File second = givenAFile("b.m", "[self init];");
+        List<Token> tokens = ObjectiveCLexer.create().lex(first);
+        TokenCache cache = new TokenCache(1000);
+
+        cache.put(first, tokens);
+        cache.put(second, tokens);
+
+        assertThat(cache.size(), is(1));
+        assertThat(cache.take(first), nullValue());
+        assertThat(cache.take(second), sameInstance(tokens));
+    }
+
+    @Test
+    public void putIsIgnoredWhenTheCacheIsDisabled() throws IOException {
+        File file = givenAFile("a.m", "[self init];");
+        TokenCache cache = new TokenCache(0);
+
+        cache.put(file, ObjectiveCLexer.create().lex(file));
+
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void clearDropsEveryEntry() throws IOException {
+        File file = givenAFile("a.m", "[self init];");
+        TokenCache cache = new TokenCache(1024 * 1024);
+
+        cache.put(file, ObjectiveCLexer.create().lex(file));
+        cache.clear();
+
+        assertThat(cache.size(), is(0));
+        assertThat(cache.take(file), nullValue());
+    }
+
+    private File givenAFile(String name, String content) throws IOException {
+        File file = folder.newFile(name);
+        FileUtils.writeStringToFile(file, content);
+        return file;
+    }
+
+}
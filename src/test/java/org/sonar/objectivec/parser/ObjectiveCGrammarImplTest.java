@@ -0,0 +1,125 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec.parser;
+
+import static com.sonar.sslr.test.parser.ParserMatchers.notParse;
+import static com.sonar.sslr.test.parser.ParserMatchers.parse;
+import static org.junit.Assert.assertThat;
+
+import org.junit.Test;
+import org.sonar.objectivec.api.ObjectiveCGrammar;
+
+import com.sonar.sslr.impl.Parser;
+
+public class ObjectiveCGrammarImplTest {
+
+    private final Parser<ObjectiveCGrammar> p = ObjectiveCParser.create();
+    private final ObjectiveCGrammar g = p.getGrammar();
+
+    @Test
+    public void classInterface() {
+        p.setRootRule(g.classInterface);
+
+        assertThat(p, parse("@interface Foo : NSObject <Bar, Baz> { @private int count; } @property (nonatomic, copy) NSString *name; - (id)initWithName:(NSString *)name; @end"));
+        assertThat(p, parse("@interface Foo (Private) - (void)reset; @end"));
+        assertThat(p, parse("@interface Foo () @end"));
+        assertThat(p, notParse("@interface Foo"));
+    }
+
+    @Test
+    public void protocolDeclaration() {
+        p.setRootRule(g.protocolDeclaration);
+
+        assertThat(p, parse("@protocol Delegate <NSObject> @required - (void)done; @optional - (void)failed:(NSError *)error; @end"));
+    }
+
+    @Test
+    public void forwardDeclaration() {
+        p.setRootRule(g.forwardDeclaration);
+
+        assertThat(p, parse("@class Foo, Bar;"));
+        assertThat(p, parse("@protocol Delegate;"));
+    }
+
+    @Test
+    public void methodDefinition() {
+        p.setRootRule(g.methodDefinition);
+
+        assertThat(p, parse("- (void)dealloc { [super dealloc]; }"));
+        assertThat(p, parse("+ (id)copy:(id)object with:(int)options { return [[object copy] autorelease]; }"));
+        assertThat(p, parse("- (void)log:(NSString *)format, ... NS_FORMAT_FUNCTION(1,2) { }"));
+        assertThat(p, notParse("- (void)dealloc;"));
+    }
+
+    @Test
+    public void functionDefinition() {
+        p.setRootRule(g.functionDefinition);
+
+        assertThat(p, parse("static inline int max(int a, int b) { return a > b ? a : b; }"));
+        assertThat(p, parse("int main(int argc, char *argv[]) { @autoreleasepool { return UIApplicationMain(argc, argv, nil, nil); } }"));
+        assertThat(p, parse("void reset() { }"));
+        assertThat(p, notParse("int max(int a, int b);"));
+        assertThat(p, notParse("typedef NS_ENUM(NSInteger, Kind) { KindA, KindB };"));
+        assertThat(p, notParse("typedef NS_OPTIONS(NSUInteger, Mask) { MaskA = 1 << 0, MaskB = 1 << 1 };"));
+        assertThat(p, notParse("NS_ENUM(NSInteger, Kind) { KindA }"));
+    }
+
+    @Test
+    public void statements() {
+        p.setRootRule(g.compoundStatement);
+
+        assertThat(p, parse("{ if (a) { b(); } else if (c) d(); else e(); }"));
+        assertThat(p, parse("{ for (int i = 0; i < 10; i++) ; for (id item in items) { continue; } }"));
+        assertThat(p, parse("{ while (a) a--; do { a++; } while (a < 10); }"));
+        assertThat(p, parse("{ switch (a) { case 1: case 2: break; default: return; } }"));
+        assertThat(p, parse("{ @try { [self run]; } @catch (NSException *e) { @throw; } @finally { [self clean]; } }"));
+        assertThat(p, parse("{ @synchronized (self) { count++; } done: return; }"));
+    }
+
+    @Test
+    public void messageExpression() {
+        p.setRootRule(g.messageExpression);
+
+        assertThat(p, parse("[[Foo alloc] initWithName:@\"foo\" size:CGSizeMake(1, 2)]"));
+        assertThat(p, parse("[self performSelector:@selector(run:) withObject:@[@1, @YES] afterDelay:0]"));
+        assertThat(p, parse("[dictionary setObject:@{@\"key\": @(1 + 2)} forKey:key]"));
+    }
+
+    @Test
+    public void blockExpression() {
+        p.setRootRule(g.blockExpression);
+
+        assertThat(p, parse("^{ [self run]; }"));
+        assertThat(p, parse("^BOOL(id obj, NSUInteger idx, BOOL *stop) { return idx > 2; }"));
+        assertThat(p, notParse("^ mask"));
+    }
+
+    @Test
+    public void programSkipsWhatIsNotRecognized() {
+        p.setRootRule(g.program);
+
+        assertThat(p, parse(""));
+        assertThat(p, parse("} ) ] @end"));
+        assertThat(p, parse("#if DEBUG\n- (void)foo {\n#else\n- (void)foo { [self bar];\n#endif\n}\n"));
+        assertThat(p, parse("NS_ASSUME_NONNULL_BEGIN\n@interface Foo : NSObject\n@end\nNS_ASSUME_NONNULL_END\n"));
+        assertThat(p, parse("typedef NS_ENUM(NSInteger, Kind) { KindA, KindB };\nstatic int one() { return 1; }\n"));
+    }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.objectivec.parser;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.apache.commons.io.FileUtils;
+import org.sonar.objectivec.api.ObjectiveCGrammar;
+
+import com.sonar.sslr.impl.Parser;
+
+/**
+ * Measures the parse throughput of the grammar on a reference corpus, to be run
+ * before and after changing the grammar. Not a unit test: run it from the IDE or with
+ * <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.sonar.objectivec.parser.ObjectiveCParserBenchmark</code>,
+ * optionally passing the files of another corpus as arguments.
+ */
+public final class ObjectiveCParserBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 10;
+    private static final int MEASURED_ITERATIONS = 20;
+    private static final int SOURCE_COPIES = 100;
+
+    private ObjectiveCParserBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        String[] files = args.length > 0 ? args : new String[] {"src/test/resources/Metrics.m", "src/test/resources/Profile.m",
+            "src/test/resources/objcSample.h"};
+        Parser<ObjectiveCGrammar> parser = ObjectiveCParser.create();
+
+        for (String file : files) {
+            report(file, corpus(new File(file)), parser);
+        }
+    }
+
+    private static String corpus(File file) throws IOException {
+        String content = FileUtils.readFileToString(file, "UTF-8");
+        StringBuilder corpus = new StringBuilder(content.length() * SOURCE_COPIES);
+        for (int i = 0; i < SOURCE_COPIES; i++) {
+            corpus.append(content).append('\n');
+        }
+        return corpus.toString();
+    }
+
+    private static void report(String name, String source, Parser<ObjectiveCGrammar> parser) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            parser.parse(source);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            parser.parse(source);
+        }
+        long elapsed = System.nanoTime() - start;
+        double megaCharsPerSecond = (double) source.length() * MEASURED_ITERATIONS / (elapsed / 1000.0);
+        System.out.println(String.format("%-40s %10.2f ms/iteration %8.2f MB/s", name,
+                elapsed / 1000000.0 / MEASURED_ITERATIONS, megaCharsPerSecond));
+    }
+
+}
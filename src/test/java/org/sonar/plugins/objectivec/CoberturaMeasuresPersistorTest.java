@@ -47,8 +47,8 @@ public final class CoberturaMeasuresPersistorTest {
 	public void shouldNotPersistMeasuresForUnknownFiles() {
 		final Project project = new Project("Test");
 		final SensorContext context = mock(SensorContext.class);
-		final Map<String, CoverageMeasuresBuilder> measures = new HashMap<String, CoverageMeasuresBuilder>();
-		measures.put("DummyResource", CoverageMeasuresBuilder.create());
+		final Map<String, FileCoverage> measures = new HashMap<String, FileCoverage>();
+		measures.put("DummyResource", new FileCoverage());
 
 		project.setFileSystem(mock(ProjectFileSystem.class));
 
@@ -65,11 +65,14 @@ public final class CoberturaMeasuresPersistorTest {
 		final SensorContext context = mock(SensorContext.class);
 		final ProjectFileSystem fileSystem = mock(ProjectFileSystem.class);
 		final List<File> sourceDirs = new ArrayList<File>();
-		final Map<String, CoverageMeasuresBuilder> measures = new HashMap<String, CoverageMeasuresBuilder>();
+		final Map<String, FileCoverage> measures = new HashMap<String, FileCoverage>();
+		final FileCoverage coverage = new FileCoverage();
 		final CoverageMeasuresBuilder measureBuilder = CoverageMeasuresBuilder.create();
 
 		sourceDirs.add(new File("/dummy"));
-		measures.put("/dummy/test", measureBuilder);
+		measures.put("/dummy/test", coverage);
+		coverage.addHits(99, 99);
+		coverage.addConditions(99, 99, 1);
 		measureBuilder.setHits(99, 99);
 		measureBuilder.setConditions(99, 99, 1);
 
@@ -27,7 +27,6 @@ import java.util.Map;
 
 import org.apache.tools.ant.filters.StringInputStream;
 import org.junit.Test;
-import org.sonar.api.measures.CoverageMeasuresBuilder;
 
 public final class CoberturaParserTest {
 	private final String VALID_REPORT_FILE_PATH = "FILEPATH";
@@ -36,7 +35,7 @@ public final class CoberturaParserTest {
 	@Test
 	public void parseReportShouldReturnAnEmptyMapWhenTheReportIsInvalid() {
 		final CoberturaParser coberturaParser = new CoberturaParser();
-		final Map<String, CoverageMeasuresBuilder> measures = coberturaParser.parseReport(new StringInputStream(""));
+		final Map<String, FileCoverage> measures = coberturaParser.parseReport(new StringInputStream(""));
 
 		assertTrue(measures.isEmpty());
 	}
@@ -44,7 +43,7 @@ public final class CoberturaParserTest {
 	@Test
 	public void parseReportShouldReturnAnEmptyMapWhenTheFileIsInvalid() {
 		final CoberturaParser coberturaParser = new CoberturaParser();
-		final Map<String, CoverageMeasuresBuilder> measures = coberturaParser.parseReport(new File(""));
+		final Map<String, FileCoverage> measures = coberturaParser.parseReport(new File(""));
 
 		assertTrue(measures.isEmpty());
 	}
@@ -52,7 +51,7 @@ public final class CoberturaParserTest {
 	@Test
 	public void parseReportShouldReturnAMapOfFileToMeasuresWhenTheReportIsValid() {
 		final CoberturaParser coberturaParser = new CoberturaParser();
-		final Map<String, CoverageMeasuresBuilder> measures = coberturaParser.parseReport(new StringInputStream(VALID_REPORT));
+		final Map<String, FileCoverage> measures = coberturaParser.parseReport(new StringInputStream(VALID_REPORT));
 
 		assertNotNull(measures.get(VALID_REPORT_FILE_PATH));
 	}
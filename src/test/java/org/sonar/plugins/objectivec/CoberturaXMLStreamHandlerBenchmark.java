@@ -0,0 +1,106 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.xml.stream.XMLStreamException;
+
+import org.sonar.api.utils.StaxParser;
+
+/**
+ * Compares reading the line attributes of a Cobertura report through the
+ * Stax2 typed access with reading them as Strings. Not a unit test: run it
+ * from the IDE or with
+ * <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.sonar.plugins.objectivec.CoberturaXMLStreamHandlerBenchmark</code>.
+ */
+public final class CoberturaXMLStreamHandlerBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+    private static final int FILES = 200;
+    private static final int LINES_PER_FILE = 2000;
+
+    private CoberturaXMLStreamHandlerBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        byte[] report = report();
+
+        run("strings", report, false);
+        run("typed", report, true);
+    }
+
+    private static byte[] report() throws UnsupportedEncodingException {
+        StringBuilder report = new StringBuilder(
+                "<?xml version=\"1.0\" ?><coverage><packages><package name=\"p\"><classes>");
+        for (int file = 0; file < FILES; file++) {
+            report.append("<class filename=\"src/File").append(file).append(".m\" name=\"File").append(file)
+                    .append("\"><lines>");
+            for (int line = 1; line <= LINES_PER_FILE; line++) {
+                if (line % 4 == 0) {
+                    report.append("<line branch=\"true\" condition-coverage=\"50% (1/2)\" hits=\"").append(line)
+                            .append("\" number=\"").append(line).append("\"/>");
+                } else {
+                    report.append("<line branch=\"false\" hits=\"").append(line % 3).append("\" number=\"")
+                            .append(line).append("\"/>");
+                }
+            }
+            report.append("</lines></class>");
+        }
+        report.append("</classes></package></packages></coverage>");
+        return report.toString().getBytes("UTF-8");
+    }
+
+    private static void run(String name, byte[] report, boolean typedAttributes) throws XMLStreamException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            parse(report, typedAttributes);
+        }
+        long collections = collections();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            parse(report, typedAttributes);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format("%-8s %10.2f ms/iteration %6d collections", name,
+                elapsed / 1000000.0 / MEASURED_ITERATIONS, collections() - collections));
+    }
+
+    private static void parse(byte[] report, boolean typedAttributes) throws XMLStreamException {
+        Map<String, FileCoverage> coverage = new HashMap<String, FileCoverage>();
+        new StaxParser(new CoberturaXMLStreamHandler(coverage, null, typedAttributes)).parse(new ByteArrayInputStream(
+                report));
+    }
+
+    private static long collections() {
+        long collections = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += collector.getCollectionCount();
+        }
+        return collections;
+    }
+
+}
@@ -23,6 +23,8 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
 
+import java.io.File;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -30,7 +32,6 @@ import javax.xml.stream.XMLStreamException;
 
 import org.apache.tools.ant.filters.StringInputStream;
 import org.junit.Test;
-import org.sonar.api.measures.CoverageMeasuresBuilder;
 import org.sonar.api.utils.StaxParser;
 
 public final class CoberturaXMLStreamHandlerTest {
@@ -43,7 +44,7 @@ public final class CoberturaXMLStreamHandlerTest {
 
 	@Test
 	public void streamLeavesTheMapEmptyWhenNoLinesAreFound() throws XMLStreamException {
-		final Map<String, CoverageMeasuresBuilder> parseResults = new HashMap<String, CoverageMeasuresBuilder>();
+		final Map<String, FileCoverage> parseResults = new HashMap<String, FileCoverage>();
 		final StaxParser parser = new StaxParser(new CoberturaXMLStreamHandler(parseResults));
 
 		parser.parse(new StringInputStream(EMPTY_REPORT));
@@ -53,7 +54,7 @@ public final class CoberturaXMLStreamHandlerTest {
 
 	@Test
 	public void streamAddsACoverageMeasureBuilderForClassesInTheReport() throws XMLStreamException {
-		final Map<String, CoverageMeasuresBuilder> parseResults = new HashMap<String, CoverageMeasuresBuilder>();
+		final Map<String, FileCoverage> parseResults = new HashMap<String, FileCoverage>();
 		final StaxParser parser = new StaxParser(new CoberturaXMLStreamHandler(parseResults));
 
 		parser.parse(new StringInputStream(VALID_REPORT));
@@ -63,52 +64,100 @@ public final class CoberturaXMLStreamHandlerTest {
 
 	@Test
 	public void streamRecords0HitsForLinesWithNoHits() throws XMLStreamException {
-		final Map<String, CoverageMeasuresBuilder> parseResults = new HashMap<String, CoverageMeasuresBuilder>();
+		final Map<String, FileCoverage> parseResults = new HashMap<String, FileCoverage>();
 		final StaxParser parser = new StaxParser(new CoberturaXMLStreamHandler(parseResults));
 
 		parser.parse(new StringInputStream(VALID_REPORT));
 
-		assertEquals(Integer.valueOf(0), parseResults.get(FILE_PATH).getHitsByLine().get(NO_HIT_LINE));
+		assertEquals(Integer.valueOf(0), parseResults.get(FILE_PATH).getHits(NO_HIT_LINE));
 	}
 
 	@Test
 	public void streamRecordsHitsForLinesWithNoBranch() throws XMLStreamException {
-		final Map<String, CoverageMeasuresBuilder> parseResults = new HashMap<String, CoverageMeasuresBuilder>();
+		final Map<String, FileCoverage> parseResults = new HashMap<String, FileCoverage>();
 		final StaxParser parser = new StaxParser(new CoberturaXMLStreamHandler(parseResults));
 
 		parser.parse(new StringInputStream(VALID_REPORT));
 
-		assertEquals(Integer.valueOf(1), parseResults.get(FILE_PATH).getHitsByLine().get(NO_BRANCH_LINE));
+		assertEquals(Integer.valueOf(1), parseResults.get(FILE_PATH).getHits(NO_BRANCH_LINE));
 	}
 
 	@Test
 	public void streamRecordsHitsForLinesWithBranch() throws XMLStreamException {
-		final Map<String, CoverageMeasuresBuilder> parseResults = new HashMap<String, CoverageMeasuresBuilder>();
+		final Map<String, FileCoverage> parseResults = new HashMap<String, FileCoverage>();
 		final StaxParser parser = new StaxParser(new CoberturaXMLStreamHandler(parseResults));
 
 		parser.parse(new StringInputStream(VALID_REPORT));
 
-		assertEquals(Integer.valueOf(10), parseResults.get(FILE_PATH).getHitsByLine().get(BRANCH_LINE));
+		assertEquals(Integer.valueOf(10), parseResults.get(FILE_PATH).getHits(BRANCH_LINE));
 	}
 
 	@Test
 	public void streamRecordsConditionsForLinesWithBranch() throws XMLStreamException {
-		final Map<String, CoverageMeasuresBuilder> parseResults = new HashMap<String, CoverageMeasuresBuilder>();
+		final Map<String, FileCoverage> parseResults = new HashMap<String, FileCoverage>();
 		final StaxParser parser = new StaxParser(new CoberturaXMLStreamHandler(parseResults));
 
 		parser.parse(new StringInputStream(VALID_REPORT));
 
-		assertEquals(Integer.valueOf(2), parseResults.get(FILE_PATH).getConditionsByLine().get(BRANCH_LINE));
+		assertEquals(2, parseResults.get(FILE_PATH).getConditions(BRANCH_LINE));
 	}
 
 	@Test
 	public void streamRecordsConditionsHitsForLinesWithBranch() throws XMLStreamException {
-		final Map<String, CoverageMeasuresBuilder> parseResults = new HashMap<String, CoverageMeasuresBuilder>();
+		final Map<String, FileCoverage> parseResults = new HashMap<String, FileCoverage>();
 		final StaxParser parser = new StaxParser(new CoberturaXMLStreamHandler(parseResults));
 
 		parser.parse(new StringInputStream(VALID_REPORT));
 
-		assertEquals(Integer.valueOf(1), parseResults.get(FILE_PATH).getCoveredConditionsByLine().get(BRANCH_LINE));
+		assertEquals(1, parseResults.get(FILE_PATH).getCoveredConditions(BRANCH_LINE));
+	}
+
+	@Test
+	public void streamIgnoresInvalidConditionCoverage() throws XMLStreamException {
+		final Map<String, FileCoverage> parseResults = new HashMap<String, FileCoverage>();
+		final StaxParser parser = new StaxParser(new CoberturaXMLStreamHandler(parseResults));
+
+		parser.parse(new StringInputStream(VALID_REPORT.replace("100% (1/2)", "100%")));
+
+		assertEquals(Integer.valueOf(10), parseResults.get(FILE_PATH).getHits(BRANCH_LINE));
+		assertEquals(0, parseResults.get(FILE_PATH).getConditions(BRANCH_LINE));
+	}
+
+	@Test
+	public void streamRecordsTheSameCoverageAsWithStringAttributes() throws XMLStreamException {
+		final Map<String, FileCoverage> typed = new HashMap<String, FileCoverage>();
+		final Map<String, FileCoverage> strings = new HashMap<String, FileCoverage>();
+
+		new StaxParser(new CoberturaXMLStreamHandler(typed, null, true)).parse(new StringInputStream(VALID_REPORT));
+		new StaxParser(new CoberturaXMLStreamHandler(strings, null, false)).parse(new StringInputStream(VALID_REPORT));
+
+		for (final int line : new int[] { NO_HIT_LINE, NO_BRANCH_LINE, BRANCH_LINE }) {
+			assertEquals(strings.get(FILE_PATH).getHits(line), typed.get(FILE_PATH).getHits(line));
+			assertEquals(strings.get(FILE_PATH).getConditions(line), typed.get(FILE_PATH).getConditions(line));
+			assertEquals(strings.get(FILE_PATH).getCoveredConditions(line), typed.get(FILE_PATH).getCoveredConditions(line));
+		}
+	}
+
+	@Test
+	public void streamSkipsTheClassesWhichAreNotInTheProject() throws XMLStreamException {
+		final Map<String, FileCoverage> parseResults = new HashMap<String, FileCoverage>();
+		final SourceFileSet sources = new SourceFileSet(Arrays.asList(new File("OTHERPATH")));
+		final StaxParser parser = new StaxParser(new CoberturaXMLStreamHandler(parseResults, sources));
+
+		parser.parse(new StringInputStream(VALID_REPORT));
+
+		assertTrue(parseResults.isEmpty());
+	}
+
+	@Test
+	public void streamReadsTheClassesOfTheProject() throws XMLStreamException {
+		final Map<String, FileCoverage> parseResults = new HashMap<String, FileCoverage>();
+		final SourceFileSet sources = new SourceFileSet(Arrays.asList(new File(FILE_PATH).getAbsoluteFile()));
+		final StaxParser parser = new StaxParser(new CoberturaXMLStreamHandler(parseResults, sources));
+
+		parser.parse(new StringInputStream(VALID_REPORT));
+
+		assertEquals(Integer.valueOf(1), parseResults.get(FILE_PATH).getHits(NO_BRANCH_LINE));
 	}
 
 }
@@ -0,0 +1,89 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public final class CoverageAccumulatorTest {
+	private static final int REPORTS = 200;
+	private static final int THREADS = 8;
+
+	@Test
+	public void addGivesTheSameCoverageWhateverTheThreads() throws Exception {
+		final CoverageAccumulator sequential = new CoverageAccumulator();
+		for (int i = 0; i < REPORTS; i++) {
+			sequential.add(givenAReport(i));
+		}
+
+		final CoverageAccumulator parallel = new CoverageAccumulator();
+		final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+		try {
+			final List<Future<?>> futures = new ArrayList<Future<?>>();
+			for (int i = 0; i < REPORTS; i++) {
+				final int report = i;
+				futures.add(executor.submit(new Runnable() {
+					public void run() {
+						parallel.add(givenAReport(report));
+					}
+				}));
+			}
+			for (final Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+
+		for (final String file : new String[] { "shared.m", "odd.m", "even.m" }) {
+			final FileCoverage expected = sequential.getCoverage().get(file);
+			final FileCoverage actual = parallel.getCoverage().get(file);
+			for (int line = 1; line <= 10; line++) {
+				assertEquals(expected.getHits(line), actual.getHits(line));
+				assertEquals(expected.getConditions(line), actual.getConditions(line));
+				assertEquals(expected.getCoveredConditions(line), actual.getCoveredConditions(line));
+			}
+		}
+		assertEquals(Integer.valueOf(REPORTS), parallel.getCoverage().get("shared.m").getHits(1));
+	}
+
+	private static Map<String, FileCoverage> givenAReport(final int report) {
+		final Map<String, FileCoverage> measures = new HashMap<String, FileCoverage>();
+		final FileCoverage shared = new FileCoverage();
+		shared.addHits(1, 1);
+		shared.addHits(2 + report % 5, report);
+		shared.addConditions(2 + report % 5, 4, report % 4);
+		measures.put("shared.m", shared);
+		final FileCoverage own = new FileCoverage();
+		own.addHits(1 + report % 10, 1);
+		measures.put(report % 2 == 0 ? "even.m" : "odd.m", own);
+		return measures;
+	}
+
+}
@@ -0,0 +1,88 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Test;
+import org.sonar.api.measures.CoverageMeasuresBuilder;
+
+public final class FileCoverageTest {
+
+	@Test
+	public void mergeSumsTheHitsOfEachLine() {
+		final FileCoverage first = new FileCoverage();
+		final FileCoverage second = new FileCoverage();
+		first.addHits(3, 1);
+		first.addHits(5, 0);
+		second.addHits(3, 2);
+		second.addHits(1000, 4);
+
+		first.merge(second);
+
+		assertEquals(Integer.valueOf(3), first.getHits(3));
+		assertEquals(Integer.valueOf(0), first.getHits(5));
+		assertEquals(Integer.valueOf(4), first.getHits(1000));
+		assertNull(first.getHits(4));
+	}
+
+	@Test
+	public void mergeKeepsTheLargestConditionCounts() {
+		final FileCoverage first = new FileCoverage();
+		final FileCoverage second = new FileCoverage();
+		first.addHits(7, 1);
+		first.addConditions(7, 2, 1);
+		second.addHits(7, 1);
+		second.addConditions(7, 4, 3);
+
+		first.merge(second);
+
+		assertEquals(4, first.getConditions(7));
+		assertEquals(3, first.getCoveredConditions(7));
+	}
+
+	@Test
+	public void hitsDoNotOverflow() {
+		final FileCoverage coverage = new FileCoverage();
+		coverage.addHits(1, Integer.MAX_VALUE);
+		coverage.addHits(1, 1);
+
+		assertEquals(Integer.valueOf(Integer.MAX_VALUE), coverage.getHits(1));
+	}
+
+	@Test
+	public void createMeasuresBuilderGivesTheSameMeasuresAsABuilderFilledDirectly() {
+		final FileCoverage coverage = new FileCoverage();
+		final CoverageMeasuresBuilder expected = CoverageMeasuresBuilder.create();
+		coverage.addHits(2, 0);
+		coverage.addHits(4, 6);
+		coverage.addConditions(4, 2, 1);
+		expected.setHits(2, 0);
+		expected.setHits(4, 6);
+		expected.setConditions(4, 2, 1);
+
+		final CoverageMeasuresBuilder actual = coverage.createMeasuresBuilder();
+		assertEquals(expected.getHitsByLine(), actual.getHitsByLine());
+		assertEquals(expected.getConditionsByLine(), actual.getConditionsByLine());
+		assertEquals(expected.getCoveredConditionsByLine(), actual.getCoveredConditionsByLine());
+	}
+
+}
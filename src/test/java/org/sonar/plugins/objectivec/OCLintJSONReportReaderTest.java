@@ -0,0 +1,125 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Resource;
+import org.sonar.api.rules.RulePriority;
+import org.sonar.api.rules.Violation;
+
+public final class OCLintJSONReportReaderTest {
+	private static final String EMPTY_REPORT = "{\"version\":\"0.8\",\"summary\":{\"numberOfFiles\":0},\"violation\":[]}";
+	private static final String DESCRIPTION = "TEST \\\"DESCRIPTION\\\"";
+	private static final Integer VIOLATION_LINE = Integer.valueOf(99);
+	private static final String RULE_KEY = "TEST RULE";
+	private static final String VALID_REPORT = "{\"version\":\"0.8\",\"summary\":{\"numberOfFiles\":1,\"numberOfFilesWithViolations\":1,\"numberOfViolationsWithPriority\":[{\"number\":1,\"priority\":3}]},\"violation\":[{\"path\":\"dummy/test\",\"startLine\":" + VIOLATION_LINE + ",\"startColumn\":13,\"endLine\":19,\"endColumn\":20,\"rule\":\"" + RULE_KEY + "\",\"category\":\"basic\",\"priority\":3,\"message\":\"" + DESCRIPTION + "\"}]}";
+	private ProjectBuilder projectBuilder;
+
+	@Test
+	public void readLeavesTheCollectionEmptyWhenNoViolationsAreFound() throws IOException {
+		final List<Violation> parseResults = givenAReportRead(EMPTY_REPORT);
+
+		assertTrue(parseResults.isEmpty());
+	}
+
+	@Test
+	public void violationContainsFileResource() throws IOException {
+		final List<Violation> parseResults = givenAReportRead(VALID_REPORT);
+
+		assertEquals(new org.sonar.api.resources.File("test"), parseResults.get(0).getResource());
+	}
+
+	@Test
+	public void violationContainsTheUnescapedMessageFromTheReport() throws IOException {
+		final List<Violation> parseResults = givenAReportRead(VALID_REPORT);
+
+		assertEquals("TEST \"DESCRIPTION\"", parseResults.get(0).getMessage());
+	}
+
+	@Test
+	public void violationContainsTheLineFromTheReport() throws IOException {
+		final List<Violation> parseResults = givenAReportRead(VALID_REPORT);
+
+		assertEquals(VIOLATION_LINE, parseResults.get(0).getLineId());
+	}
+
+	@Test
+	public void violationRuleSeverityContainsThePriorityFromTheReport() throws IOException {
+		final List<Violation> parseResults = givenAReportRead(VALID_REPORT);
+
+		assertEquals(RulePriority.MAJOR, parseResults.get(0).getRule().getSeverity());
+	}
+
+	@Test
+	public void violationRuleKeyContainsTheRuleFromTheReport() throws IOException {
+		final List<Violation> parseResults = givenAReportRead(VALID_REPORT);
+
+		assertEquals(RULE_KEY, parseResults.get(0).getRule().getKey());
+	}
+
+	@Test
+	public void violationWithoutLineHasNoLine() throws IOException {
+		final List<Violation> parseResults = givenAReportRead("{\"violation\":[{\"path\":\"dummy/test\",\"rule\":\"" + RULE_KEY + "\",\"startLine\":null}]}");
+
+		assertNull(parseResults.get(0).getLineId());
+	}
+
+	@Test(expected = IOException.class)
+	public void readShouldFailOnATruncatedReport() throws IOException {
+		givenAReportRead("{\"violation\":[{\"path\":\"dummy/test\"");
+	}
+
+	private List<Violation> givenAReportRead(final String report) throws IOException {
+		final org.sonar.api.resources.File dummyFile = new org.sonar.api.resources.File("test");
+		projectBuilder = new ProjectBuilder();
+		projectBuilder.containingSourceDirectory("dummy");
+		final SensorContext context = mock(SensorContext.class);
+		when(context.getResource(any(Resource.class))).thenReturn(dummyFile);
+
+		final List<Violation> parseResults = new ArrayList<Violation>();
+		final OCLintJSONReportReader testedReader = new OCLintJSONReportReader(new OCLintParser.ViolationHandler() {
+			public void handle(final Violation violation) {
+				parseResults.add(violation);
+			}
+		}, project(), context, new ObjectiveCResourceResolver(), new OCLintRuleCache());
+
+		testedReader.read(new StringReader(report));
+		return parseResults;
+	}
+
+	private Project project() {
+		return projectBuilder.project();
+	}
+
+}
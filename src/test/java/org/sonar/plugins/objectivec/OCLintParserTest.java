@@ -19,6 +19,7 @@
  */
 package org.sonar.plugins.objectivec;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
@@ -40,6 +41,7 @@ import org.sonar.api.rules.Violation;
 
 public class OCLintParserTest {
 	private final String VALID_REPORT = "<pmd version=\"oclint-0.8dev\"><file name=\"/dummy/TEST_FILE\"><violation beginline=\"19\" endline=\"19\" begincolumn=\"13\" endcolumn=\"20\" rule=\"UselessOperationOnImmutable\" ruleset=\"Basic Rules\" package=\"org.sprunck.bee\" class=\"Bee\" method=\"toString\" externalInfoUrl=\"http://pmd.sourceforge.net/rules/basic.html#UselessOperationOnImmutable\" priority=\"3\">An operation on an Immutable object (String, BigDecimal or BigInteger) won't change the object itself</violation></file></pmd>";
+	private final String VALID_JSON_REPORT = "\n  {\"version\":\"0.8\",\"violation\":[{\"path\":\"/dummy/TEST_FILE\",\"startLine\":19,\"startColumn\":13,\"endLine\":19,\"endColumn\":20,\"rule\":\"UselessOperationOnImmutable\",\"category\":\"Basic Rules\",\"priority\":3,\"message\":\"An operation on an Immutable object won't change the object itself\"}]}";
 
 	@Test
 	public void parseReportShouldReturnAnEmptyCollectionWhenTheReportIsInvalid() {
@@ -76,5 +78,24 @@ public class OCLintParserTest {
 		assertFalse(violations.isEmpty());
 	}
 
+	@Test
+	public void parseReportShouldDetectJSONReports() {
+		final Project project = new Project("Test");
+		final org.sonar.api.resources.File dummyFile = new org.sonar.api.resources.File("dummy/test");
+		final SensorContext context = mock(SensorContext.class);
+		final ProjectFileSystem fileSystem = mock(ProjectFileSystem.class);
+		final List<File> sourceDirs = new ArrayList<File>();
+
+		final OCLintParser testedParser = new OCLintParser(project, context);
+
+		sourceDirs.add(new File("/dummy"));
+		when(fileSystem.getSourceDirs()).thenReturn(sourceDirs);
+		when(context.getResource(any(Resource.class))).thenReturn(dummyFile);
+		project.setFileSystem(fileSystem);
+
+		final Collection<Violation> violations = testedParser.parseReport(new StringInputStream(VALID_JSON_REPORT));
+		assertEquals(1, violations.size());
+	}
+
 
 }
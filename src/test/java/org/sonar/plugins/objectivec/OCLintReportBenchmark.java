@@ -0,0 +1,144 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.resources.Resource;
+import org.sonar.api.rules.Violation;
+
+/**
+ * Compares reading the same violations from the PMD XML report and from the
+ * JSON report of OCLint. Not a unit test: run it from the IDE or with
+ * <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.sonar.plugins.objectivec.OCLintReportBenchmark</code>.
+ */
+public final class OCLintReportBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+    private static final int FILES = 500;
+    private static final int VIOLATIONS_PER_FILE = 400;
+    private static final int RULES = 60;
+
+    private OCLintReportBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        byte[] xmlReport = xmlReport();
+        byte[] jsonReport = jsonReport();
+        System.out.println(String.format("xml report %d KB, json report %d KB", xmlReport.length / 1024,
+                jsonReport.length / 1024));
+
+        OCLintParser parser = parser();
+        run("xml", xmlReport, parser);
+        run("json", jsonReport, parser);
+    }
+
+    private static OCLintParser parser() {
+        ProjectBuilder projectBuilder = new ProjectBuilder();
+        projectBuilder.containingSourceDirectory("/src");
+        SensorContext context = mock(SensorContext.class);
+        when(context.getResource(any(Resource.class))).thenReturn(new org.sonar.api.resources.File("src"));
+        return new OCLintParser(projectBuilder.project(), context);
+    }
+
+    private static byte[] xmlReport() throws UnsupportedEncodingException {
+        StringBuilder report = new StringBuilder("<?xml version=\"1.0\" ?><pmd version=\"oclint-0.8\">");
+        for (int file = 0; file < FILES; file++) {
+            report.append("<file name=\"/src/File").append(file).append(".m\">");
+            for (int line = 1; line <= VIOLATIONS_PER_FILE; line++) {
+                report.append("<violation begincolumn=\"5\" endcolumn=\"80\" beginline=\"").append(line)
+                        .append("\" endline=\"").append(line).append("\" rule=\"rule ").append(line % RULES)
+                        .append("\" ruleset=\"Basic\" priority=\"").append(1 + line % 3).append("\">")
+                        .append(message(line)).append("</violation>");
+            }
+            report.append("</file>");
+        }
+        report.append("</pmd>");
+        return report.toString().getBytes("UTF-8");
+    }
+
+    private static byte[] jsonReport() throws UnsupportedEncodingException {
+        StringBuilder report = new StringBuilder("{\"version\":\"0.8\",\"summary\":{\"numberOfFiles\":").append(FILES)
+                .append("},\"violation\":[");
+        for (int file = 0; file < FILES; file++) {
+            for (int line = 1; line <= VIOLATIONS_PER_FILE; line++) {
+                if (file > 0 || line > 1) {
+                    report.append(',');
+                }
+                report.append("{\"path\":\"/src/File").append(file).append(".m\",\"startLine\":").append(line)
+                        .append(",\"startColumn\":5,\"endLine\":").append(line)
+                        .append(",\"endColumn\":80,\"rule\":\"rule ").append(line % RULES)
+                        .append("\",\"category\":\"Basic\",\"priority\":").append(1 + line % 3)
+                        .append(",\"message\":\"").append(message(line)).append("\"}");
+            }
+        }
+        report.append("]}");
+        return report.toString().getBytes("UTF-8");
+    }
+
+    private static String message(int line) {
+        return "Line with " + (100 + line % 50) + " characters exceeds limit of 100";
+    }
+
+    private static void run(String name, byte[] report, OCLintParser parser) {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            parse(report, parser);
+        }
+        long collections = collections();
+        long violations = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            violations += parse(report, parser);
+        }
+        long elapsed = System.nanoTime() - start;
+        System.out.println(String.format("%-6s %10.2f ms/iteration %6d collections %8d violations", name,
+                elapsed / 1000000.0 / MEASURED_ITERATIONS, collections() - collections, violations
+                        / MEASURED_ITERATIONS));
+    }
+
+    private static long parse(byte[] report, OCLintParser parser) {
+        final long[] violations = new long[1];
+        parser.parseReport(new ByteArrayInputStream(report), new OCLintParser.ViolationHandler() {
+            public void handle(Violation violation) {
+                violations[0]++;
+            }
+        });
+        return violations[0];
+    }
+
+    private static long collections() {
+        long collections = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            collections += collector.getCollectionCount();
+        }
+        return collections;
+    }
+
+}
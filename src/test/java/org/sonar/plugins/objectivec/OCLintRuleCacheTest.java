@@ -0,0 +1,73 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.RulePriority;
+
+public final class OCLintRuleCacheTest {
+	private static final String RULE_KEY = "TEST RULE";
+
+	@Test
+	public void getShouldReuseTheRuleOfAKey() {
+		final OCLintRuleCache testedCache = new OCLintRuleCache();
+
+		assertSame(testedCache.get(RULE_KEY, "3"), testedCache.get(RULE_KEY, "3"));
+	}
+
+	@Test
+	public void getShouldCreateARuleOfTheOCLintRepositoryWithoutProfile() {
+		final Rule rule = new OCLintRuleCache().get(RULE_KEY, "3");
+
+		assertEquals(OCLintRuleRepository.REPOSITORY_KEY, rule.getRepositoryKey());
+		assertEquals(RULE_KEY, rule.getKey());
+		assertEquals(RulePriority.MAJOR, rule.getSeverity());
+	}
+
+	@Test
+	public void getShouldReturnTheRuleActiveInTheProfile() {
+		final Rule activeRule = Rule.create(OCLintRuleRepository.REPOSITORY_KEY, RULE_KEY);
+		final OCLintRuleCache testedCache = new OCLintRuleCache(givenAProfileActivating(activeRule));
+
+		assertSame(activeRule, testedCache.get(RULE_KEY, "3"));
+	}
+
+	@Test
+	public void getShouldReturnNullForARuleInactiveInTheProfile() {
+		final Rule activeRule = Rule.create(OCLintRuleRepository.REPOSITORY_KEY, RULE_KEY);
+		final OCLintRuleCache testedCache = new OCLintRuleCache(givenAProfileActivating(activeRule));
+
+		assertNull(testedCache.get("OTHER RULE", "3"));
+		assertNull(testedCache.get("OTHER RULE", "3"));
+	}
+
+	private RulesProfile givenAProfileActivating(final Rule rule) {
+		final RulesProfile profile = RulesProfile.create();
+		profile.activateRule(rule, RulePriority.MAJOR);
+		return profile;
+	}
+
+}
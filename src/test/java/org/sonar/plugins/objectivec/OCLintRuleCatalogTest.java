@@ -0,0 +1,103 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.RulePriority;
+
+public final class OCLintRuleCatalogTest {
+
+	@Test
+	public void readShouldReturnTheRulesWritten() throws IOException {
+		final Rule rule = Rule.create();
+		rule.setKey("long line");
+		rule.setName("long line");
+		rule.setDescription("Line with <b>too many</b> characters é");
+		rule.setSeverity(RulePriority.MINOR);
+		final List<Rule> rules = new ArrayList<Rule>();
+		rules.add(rule);
+
+		final Rule readRule = OCLintRuleCatalog.read(givenACatalogOf(rules)).get(0);
+
+		assertEquals("long line", readRule.getKey());
+		assertEquals("long line", readRule.getName());
+		assertEquals("Line with <b>too many</b> characters é", readRule.getDescription());
+		assertEquals(RulePriority.MINOR, readRule.getSeverity());
+	}
+
+	@Test
+	public void readShouldKeepMissingValues() throws IOException {
+		final Rule rule = Rule.create();
+		rule.setKey("long line");
+		final List<Rule> rules = new ArrayList<Rule>();
+		rules.add(rule);
+
+		final Rule readRule = OCLintRuleCatalog.read(givenACatalogOf(rules)).get(0);
+
+		assertNull(readRule.getDescription());
+		assertNull(readRule.getSeverity());
+	}
+
+	@Test
+	public void readShouldReturnTheRulesOfTheTextCatalog() throws IOException {
+		final BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(
+				"src/main/oclint/rules.txt"), "UTF-8"));
+		final List<Rule> rules;
+		try {
+			rules = new OCLintRuleParser().parse(reader);
+		} finally {
+			reader.close();
+		}
+
+		final List<Rule> readRules = OCLintRuleCatalog.read(givenACatalogOf(rules));
+
+		assertEquals(rules.size(), readRules.size());
+		for (int i = 0; i < rules.size(); i++) {
+			assertEquals(rules.get(i).getKey(), readRules.get(i).getKey());
+			assertEquals(rules.get(i).getDescription(), readRules.get(i).getDescription());
+			assertEquals(rules.get(i).getSeverity(), readRules.get(i).getSeverity());
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void readShouldRejectAnythingElse() throws IOException {
+		OCLintRuleCatalog.read(new ByteArrayInputStream("long line\n----------\n".getBytes("UTF-8")));
+	}
+
+	private ByteArrayInputStream givenACatalogOf(final List<Rule> rules) throws IOException {
+		final ByteArrayOutputStream catalog = new ByteArrayOutputStream();
+		OCLintRuleCatalog.write(rules, catalog);
+		return new ByteArrayInputStream(catalog.toByteArray());
+	}
+
+}
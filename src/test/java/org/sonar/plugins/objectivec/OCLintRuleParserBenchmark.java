@@ -0,0 +1,88 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+
+/**
+ * Parses generated rule catalogs of growing sizes, up to 50k lines, to show
+ * that the time per line stays the same. Not a unit test: run it from the
+ * IDE or with
+ * <code>mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=org.sonar.plugins.objectivec.OCLintRuleParserBenchmark</code>.
+ */
+public final class OCLintRuleParserBenchmark {
+
+    private static final int WARMUP_ITERATIONS = 5;
+    private static final int MEASURED_ITERATIONS = 10;
+    private static final int[] LINES = { 6250, 12500, 25000, 50000 };
+    private static final int DESCRIPTION_LINES = 40;
+
+    private OCLintRuleParserBenchmark() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        for (int lines : LINES) {
+            run(catalog(lines));
+        }
+    }
+
+    /**
+     * A catalog made of few rules with long descriptions, the worst case of
+     * descriptions built by concatenation.
+     */
+    private static String catalog(int lines) {
+        StringBuilder catalog = new StringBuilder("Available issues:\n\nCustom\n======\n\n");
+        int rule = 0;
+        int written = 5;
+        while (written < lines) {
+            catalog.append("custom rule ").append(rule++).append("\n----------\n\nSummary: in-house rule\n");
+            for (int line = 0; line < DESCRIPTION_LINES; line++) {
+                catalog.append("Documentation line ").append(line)
+                        .append(line % 10 == 0 ? " http://example.com/rules\n" : " of the rule\n");
+            }
+            catalog.append("\nPriority: 2\nSeverity: 2\nCategory: Custom\n\n");
+            written += DESCRIPTION_LINES + 9;
+        }
+        return catalog.toString();
+    }
+
+    private static void run(String catalog) throws IOException {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            parse(catalog);
+        }
+        int rules = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            rules = parse(catalog);
+        }
+        long elapsed = System.nanoTime() - start;
+        int lines = catalog.split("\n").length;
+        System.out.println(String.format("%6d lines %5d rules %10.2f ms/iteration %8.1f ns/line", lines, rules,
+                elapsed / 1000000.0 / MEASURED_ITERATIONS, (double) elapsed / MEASURED_ITERATIONS / lines));
+    }
+
+    private static int parse(String catalog) throws IOException {
+        return new OCLintRuleParser().parse(new BufferedReader(new StringReader(catalog))).size();
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.Test;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.RulePriority;
+
+public final class OCLintRuleParserTest {
+	private static final String CATALOG = "Available issues:\n\nCustom\n======\n\n"
+			+ "first rule\n----------\n\nSummary: does things\nsee http://example.com/doc\n\nPriority: 2\nSeverity: 2\nCategory: Custom\n\n"
+			+ "second rule\n----------\n\nSummary: other things\n\nPriority: 1\nSeverity: 1\nCategory: Custom\n";
+
+	@Test
+	public void parseShouldReturnARulePerHeader() throws IOException {
+		final List<Rule> rules = givenTheCatalogParsed();
+
+		assertEquals(2, rules.size());
+		assertEquals("first rule", rules.get(0).getKey());
+		assertEquals("first rule", rules.get(0).getName());
+		assertEquals("second rule", rules.get(1).getKey());
+	}
+
+	@Test
+	public void parseShouldReadTheSeverityOfTheRules() throws IOException {
+		final List<Rule> rules = givenTheCatalogParsed();
+
+		assertEquals(RulePriority.MINOR, rules.get(0).getSeverity());
+		assertEquals(RulePriority.MAJOR, rules.get(1).getSeverity());
+	}
+
+	@Test
+	public void parseShouldLinkUrlsAndLeaveTheNextRuleNameOutOfTheDescription() throws IOException {
+		final List<Rule> rules = givenTheCatalogParsed();
+
+		assertEquals(
+				" does things<br><a href=\"http://example.com/doc\" target=\"_blank\">http://example.com/doc</a><br><br><br>",
+				rules.get(0).getDescription());
+	}
+
+	private List<Rule> givenTheCatalogParsed() throws IOException {
+		return new OCLintRuleParser().parse(new BufferedReader(new StringReader(CATALOG)));
+	}
+
+}
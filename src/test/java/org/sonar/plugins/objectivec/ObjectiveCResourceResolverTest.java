@@ -0,0 +1,105 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.Test;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.resources.Project;
+import org.sonar.api.resources.Resource;
+
+public final class ObjectiveCResourceResolverTest {
+
+	@Test
+	public void fromIOFileResolvesEquivalentPathsToTheSameResource() {
+		final Project project = givenAProject();
+		final ObjectiveCResourceResolver resolver = new ObjectiveCResourceResolver();
+
+		final org.sonar.api.resources.File resource = resolver.fromIOFile("/dummy/test.m", project);
+
+		assertEquals(new org.sonar.api.resources.File("test.m"), resource);
+		assertSame(resource, resolver.fromIOFile("/dummy/other/../test.m", project));
+		assertNull(resolver.fromIOFile("/Pods/test.m", project));
+	}
+
+	@Test
+	public void resolveAsksTheContextOncePerIndexedPath() {
+		final Project project = givenAProject();
+		final SensorContext context = mock(SensorContext.class);
+		final ObjectiveCResourceResolver resolver = new ObjectiveCResourceResolver();
+		final org.sonar.api.resources.File indexed = new org.sonar.api.resources.File("test.m");
+		when(context.getResource(any(Resource.class))).thenReturn(indexed);
+
+		assertEquals(indexed, resolver.resolve("/dummy/test.m", project, context));
+		assertEquals(indexed, resolver.resolve("/dummy/test.m", project, context));
+
+		verify(context, times(1)).getResource(any(Resource.class));
+	}
+
+	@Test
+	public void resolveFindsAFileIndexedAfterAPreviousMiss() {
+		final Project project = givenAProject();
+		final SensorContext context = mock(SensorContext.class);
+		final ObjectiveCResourceResolver resolver = new ObjectiveCResourceResolver();
+		final org.sonar.api.resources.File indexed = new org.sonar.api.resources.File("test.m");
+		when(context.getResource(any(Resource.class))).thenReturn(null, indexed);
+
+		assertNull(resolver.resolve("/dummy/test.m", project, context));
+		assertEquals(indexed, resolver.resolve("/dummy/test.m", project, context));
+	}
+
+	@Test
+	public void resolveDoesNotAskTheContextForPathsOutsideTheProject() {
+		final Project project = givenAProject();
+		final SensorContext context = mock(SensorContext.class);
+		final ObjectiveCResourceResolver resolver = new ObjectiveCResourceResolver();
+
+		assertNull(resolver.resolve("/Pods/test.m", project, context));
+		assertNull(resolver.resolve("/Pods/test.m", project, context));
+
+		verify(context, never()).getResource(any(Resource.class));
+	}
+
+	@Test
+	public void resolveReturnsTheResourcesIndexedInTheContext() {
+		final Project project = givenAProject();
+		final SensorContext context = mock(SensorContext.class);
+		final org.sonar.api.resources.File indexed = new org.sonar.api.resources.File("test.m");
+		when(context.getResource(any(Resource.class))).thenReturn(indexed);
+
+		assertEquals(indexed, new ObjectiveCResourceResolver().resolve("/dummy/test.m", project, context));
+	}
+
+	private static Project givenAProject() {
+		final ProjectBuilder projectBuilder = new ProjectBuilder();
+		projectBuilder.containingSourceDirectory("/dummy");
+		return projectBuilder.project();
+	}
+
+}
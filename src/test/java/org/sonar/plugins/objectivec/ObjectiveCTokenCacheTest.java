@@ -0,0 +1,84 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.config.Settings;
+import org.sonar.api.resources.Project;
+
+import com.sonar.sslr.api.Token;
+
+public final class ObjectiveCTokenCacheTest {
+
+	private static final long MEGABYTE = 1024L * 1024L;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void maxMemoryDefaultsWithoutSettings() {
+		assertEquals(64 * MEGABYTE, new ObjectiveCTokenCache().getMaxMemory());
+		assertEquals(64 * MEGABYTE, new ObjectiveCTokenCache(new Settings()).getMaxMemory());
+	}
+
+	@Test
+	public void maxMemoryIsReadInMegabytes() {
+		assertEquals(16 * MEGABYTE, new ObjectiveCTokenCache(givenMaxMemory("16")).getMaxMemory());
+		assertEquals(0, new ObjectiveCTokenCache(givenMaxMemory("0")).getMaxMemory());
+	}
+
+	@Test
+	public void maxMemoryFallsBackToTheDefaultOnAnInvalidValue() {
+		assertEquals(64 * MEGABYTE, new ObjectiveCTokenCache(givenMaxMemory("64m")).getMaxMemory());
+	}
+
+	@Test
+	public void maxMemoryDisablesTheCacheOnANegativeValue() {
+		assertEquals(0, new ObjectiveCTokenCache(givenMaxMemory("-5")).getMaxMemory());
+	}
+
+	@Test
+	public void executeOnDropsTheTokensLeftOverByTheAnalysis() throws IOException {
+		final File file = folder.newFile("a.m");
+		final ObjectiveCTokenCache cache = new ObjectiveCTokenCache();
+		cache.put(file, Collections.<Token> emptyList());
+
+		cache.executeOn(mock(Project.class), mock(SensorContext.class));
+
+		assertEquals(0, cache.size());
+	}
+
+	private Settings givenMaxMemory(final String value) {
+		final Settings settings = new Settings();
+		settings.setProperty(ObjectiveCTokenCache.MAX_MEMORY_KEY, value);
+		return settings;
+	}
+
+}
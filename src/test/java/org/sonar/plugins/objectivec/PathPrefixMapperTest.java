@@ -0,0 +1,87 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+public final class PathPrefixMapperTest {
+
+	@Test
+	public void mapRewritesTheLongestMatchingPrefix() {
+		final PathPrefixMapper mapper = new PathPrefixMapper(new String[] { "/Users/ci=/home/ci",
+				"/Users/ci/workspace/MyApp/=/home/me/MyApp" });
+
+		assertEquals("/home/me/MyApp/Classes/A.m", mapper.map("/Users/ci/workspace/MyApp/Classes/A.m"));
+		assertEquals("/home/ci/other/B.m", mapper.map("/Users/ci/other/B.m"));
+	}
+
+	@Test
+	public void mapOnlyMatchesWholeSegments() {
+		final PathPrefixMapper mapper = new PathPrefixMapper(new String[] { "/Users/ci/workspace/MyApp=/home/me/MyApp" });
+
+		assertEquals("/Users/ci/workspace/MyAppTests/A.m", mapper.map("/Users/ci/workspace/MyAppTests/A.m"));
+		assertEquals("/home/me/MyApp", mapper.map("/Users/ci/workspace/MyApp"));
+	}
+
+	@Test
+	public void mapLeavesUnmatchedPathsUnchanged() {
+		final PathPrefixMapper mapper = new PathPrefixMapper(new String[] { "/Users/ci=/home/ci" });
+
+		assertEquals("Classes/A.m", mapper.map("Classes/A.m"));
+		assertEquals("/Users/other/A.m", mapper.map("/Users/other/A.m"));
+	}
+
+	@Test
+	public void mapRewritesEveryAbsolutePathWithARootMapping() {
+		final PathPrefixMapper mapper = new PathPrefixMapper(new String[] { "/=/src" });
+
+		assertEquals("/src/abs/x.m", mapper.map("/abs/x.m"));
+		assertEquals("Classes/A.m", mapper.map("Classes/A.m"));
+	}
+
+	@Test
+	public void mapIgnoresTrailingSeparatorsOfTheMappings() {
+		final PathPrefixMapper mapper = new PathPrefixMapper(new String[] { "/Users/ci/=/home/ci/" });
+
+		assertEquals("/home/ci/Classes/A.m", mapper.map("/Users/ci/Classes/A.m"));
+		assertEquals("/home/ci", mapper.map("/Users/ci"));
+	}
+
+	@Test
+	public void mapCountsTheDistinctPathsOfEachMapping() {
+		final PathPrefixMapper mapper = new PathPrefixMapper(new String[] { "/a=/x", "/b=/y" });
+
+		mapper.map("/a/1.m");
+		mapper.map("/a/2.m");
+		mapper.map("/a/2.m");
+		mapper.map("/c/3.m");
+
+		assertEquals(Long.valueOf(2), mapper.getMatchCounts().get("/a"));
+		assertEquals(Long.valueOf(0), mapper.getMatchCounts().get("/b"));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void mappingsWithoutLocalPrefixAreRejected() {
+		new PathPrefixMapper(new String[] { "/Users/ci" });
+	}
+
+}
@@ -0,0 +1,151 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.Settings;
+
+public final class ReportFilesScannerTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void scanShouldFindTheFilesMatchingThePattern() throws IOException {
+		final File first = givenAFile("reports/coverage-1.xml");
+		final File second = givenAFile("reports/coverage-2.xml");
+		givenAFile("reports/other.xml");
+		givenAFile("coverage-3.xml");
+
+		final List<File> files = new ReportFilesScanner().scan(folder.getRoot(), "reports/coverage-*.xml");
+
+		assertEquals(Arrays.asList(first, second), files);
+	}
+
+	@Test
+	public void scanShouldFindFilesInSubdirectories() throws IOException {
+		final File first = givenAFile("targets/App/oclint.xml");
+		final File second = givenAFile("targets/Lib/nested/oclint.xml");
+
+		final List<File> files = new ReportFilesScanner().scan(folder.getRoot(), "targets/**/oclint.xml");
+
+		assertEquals(Arrays.asList(first, second), files);
+	}
+
+	@Test
+	public void scanShouldSkipExcludedDirectories() throws IOException {
+		final File report = givenAFile("App/oclint.xml");
+		givenAFile("Pods/AFNetworking/oclint.xml");
+		givenAFile(".git/oclint.xml");
+
+		final List<File> files = new ReportFilesScanner().scan(folder.getRoot(), "**/oclint.xml");
+
+		assertEquals(Arrays.asList(report), files);
+	}
+
+	@Test
+	public void scanShouldSearchExcludedDirectoriesNamedByThePattern() throws IOException {
+		final File report = givenAFile("Pods/oclint.xml");
+
+		final List<File> files = new ReportFilesScanner().scan(folder.getRoot(), "Pods/*.xml");
+
+		assertEquals(Arrays.asList(report), files);
+	}
+
+	@Test
+	public void scanShouldUseTheConfiguredExclusions() throws IOException {
+		final File report = givenAFile("Pods/oclint.xml");
+		givenAFile("build/oclint.xml");
+		final Settings settings = new Settings();
+		settings.setProperty(ReportFilesScanner.EXCLUSIONS_KEY, "build");
+
+		final List<File> files = new ReportFilesScanner(settings).scan(folder.getRoot(), "**/oclint.xml");
+
+		assertEquals(Arrays.asList(report), files);
+	}
+
+	@Test
+	public void scanShouldFindCompressedReports() throws IOException {
+		final File compressed = givenAFile("reports/coverage-1.xml.gz");
+		final File plain = givenAFile("reports/coverage-2.xml");
+		givenAFile("reports/coverage-2.xml.gz");
+
+		final List<File> files = new ReportFilesScanner().scan(folder.getRoot(), "reports/coverage-*.xml");
+
+		assertEquals(Arrays.asList(compressed, plain), files);
+	}
+
+	@Test
+	public void scanShouldIgnoreZstandardReports() throws IOException {
+		final File plain = givenAFile("reports/coverage-1.xml");
+		givenAFile("reports/coverage-2.xml.zst");
+
+		final List<File> files = new ReportFilesScanner().scan(folder.getRoot(), "reports/coverage-*.xml");
+
+		assertEquals(Arrays.asList(plain), files);
+	}
+
+	@Test
+	public void scanShouldReturnNothingWhenThePrefixDoesNotExist() {
+		assertTrue(new ReportFilesScanner().scan(folder.getRoot(), "missing/*.xml").isEmpty());
+	}
+
+	@Test
+	public void scanShouldReuseTheFilesFoundForAPattern() throws IOException {
+		givenAFile("reports/coverage-1.xml");
+		final ReportFilesScanner testedScanner = new ReportFilesScanner();
+
+		assertSame(testedScanner.scan(folder.getRoot(), "reports/*.xml"),
+				testedScanner.scan(folder.getRoot(), "reports/*.xml"));
+	}
+
+	@Test
+	public void scanShouldEnterEachDirectoryOnceWhenLinksFormACycle() throws IOException, InterruptedException {
+		final File report = givenAFile("App/oclint.xml");
+		final File link = new File(folder.getRoot(), "App/Parent");
+		Runtime.getRuntime().exec(new String[] { "ln", "-s", folder.getRoot().getAbsolutePath(), link.getPath() })
+				.waitFor();
+		assumeTrue(link.isDirectory());
+
+		final List<File> files = new ReportFilesScanner().scan(folder.getRoot(), "**/oclint.xml");
+
+		assertEquals(Arrays.asList(report), files);
+	}
+
+	private File givenAFile(final String path) throws IOException {
+		final File file = new File(folder.getRoot(), path);
+		file.getParentFile().mkdirs();
+		assertTrue(file.createNewFile());
+		return file;
+	}
+
+}
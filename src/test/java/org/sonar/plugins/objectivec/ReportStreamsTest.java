@@ -0,0 +1,139 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public final class ReportStreamsTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void openShouldReadPlainReports() throws IOException {
+		final byte[] content = givenAReportContent(1000);
+		final File report = folder.newFile("coverage.xml");
+		write(content, new FileOutputStream(report));
+
+		assertArrayEquals(content, readAll(report));
+	}
+
+	@Test
+	public void openShouldDecompressGzipReports() throws IOException {
+		final byte[] content = givenAReportContent(300000);
+		final File report = folder.newFile("coverage.xml.gz");
+		write(content, new GZIPOutputStream(new FileOutputStream(report)));
+
+		assertArrayEquals(content, readAll(report));
+	}
+
+	@Test(expected = IOException.class)
+	public void openShouldReportTruncatedGzipReports() throws IOException {
+		final ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+		write(givenAReportContent(300000), new GZIPOutputStream(compressed));
+		final File report = folder.newFile("coverage.xml.gz");
+		final OutputStream output = new FileOutputStream(report);
+		output.write(compressed.toByteArray(), 0, compressed.size() / 2);
+		output.close();
+
+		readAll(report);
+	}
+
+	@Test(expected = IllegalStateException.class, timeout = 10000)
+	public void readShouldThrowWhatStoppedTheDecompression() throws IOException {
+		final InputStream failing = new InputStream() {
+			@Override
+			public int read() {
+				throw new IllegalStateException("corrupted");
+			}
+		};
+		final InputStream input = new ReportStreams.DecompressingInputStream(failing, "coverage.xml.gz");
+		try {
+			input.read();
+		} finally {
+			input.close();
+		}
+	}
+
+	@Test(expected = IOException.class)
+	public void openShouldRejectZstandardReports() throws IOException {
+		final File report = folder.newFile("coverage.xml.zst");
+		write(new byte[] { 0x28, (byte) 0xb5, 0x2f, (byte) 0xfd, 0 }, new FileOutputStream(report));
+
+		ReportStreams.open(report);
+	}
+
+	@Test
+	public void uncompressedNameShouldRemoveTheCompressionSuffix() {
+		assertEquals("oclint.xml", ReportStreams.uncompressedName("oclint.xml.gz"));
+		assertNull(ReportStreams.uncompressedName("oclint.xml"));
+	}
+
+	@Test
+	public void uncompressedNameShouldIgnoreUnsupportedCompressions() {
+		assertNull(ReportStreams.uncompressedName("oclint.json.zst"));
+	}
+
+	private byte[] givenAReportContent(final int length) {
+		final byte[] content = new byte[length];
+		for (int i = 0; i < length; i++) {
+			content[i] = (byte) ('a' + i % 26);
+		}
+		return content;
+	}
+
+	private void write(final byte[] content, final OutputStream output) throws IOException {
+		try {
+			output.write(content);
+		} finally {
+			output.close();
+		}
+	}
+
+	private byte[] readAll(final File report) throws IOException {
+		final InputStream input = ReportStreams.open(report);
+		try {
+			final ByteArrayOutputStream content = new ByteArrayOutputStream();
+			final byte[] buffer = new byte[1000];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				content.write(buffer, 0, read);
+			}
+			return content.toByteArray();
+		} finally {
+			input.close();
+		}
+	}
+
+}
@@ -0,0 +1,50 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public final class SourceFileSetTest {
+
+	@Test
+	public void containsTheSourceFilesWhateverTheirPathForm() {
+		final File source = new File("src/Classes/Profile.m").getAbsoluteFile();
+		final SourceFileSet sources = new SourceFileSet(Arrays.asList(source));
+
+		assertTrue(sources.contains(source.getPath()));
+		assertTrue(sources.contains("src/Classes/Profile.m"));
+		assertTrue(sources.contains("src/Other/../Classes/./Profile.m"));
+	}
+
+	@Test
+	public void doesNotContainOtherFiles() {
+		final SourceFileSet sources = new SourceFileSet(Arrays.asList(new File("src/Classes/Profile.m")));
+
+		assertFalse(sources.contains("Pods/AFNetworking/AFHTTPClient.m"));
+		assertFalse(sources.contains(null));
+	}
+
+}
@@ -0,0 +1,131 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Matchers;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.checks.AnnotationCheckFactory;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.Measure;
+import org.sonar.api.resources.Resource;
+import org.sonar.objectivec.api.ObjectiveCMetric;
+import org.sonar.squid.api.SourceCode;
+import org.sonar.squid.api.SourceFile;
+import org.sonar.squid.api.SourceFunction;
+import org.sonar.squid.api.SourceProject;
+import org.sonar.squid.indexer.Query;
+import org.sonar.squid.indexer.SquidIndex;
+
+public final class SquidMeasuresPersistorTest {
+	private static final int FILES = 10;
+	private static final int FUNCTIONS_PER_FILE = 3;
+
+	@Test
+	public void saveMeasuresSavesTheComplexityDistributionOfTheFunctionsOfEachFile() {
+		final SensorContext context = mock(SensorContext.class);
+		final SourceProject project = new SourceProject("Test");
+		final SourceFile file = givenAFile(project, "/dummy/test.m");
+		givenAFunction(file, "first", 1);
+		givenAFunction(givenAFunction(file, "second", 5), "nested", 12);
+		givenAFunction(givenAFile(project, "/dummy/other.m"), "other", 30);
+
+		testedPersistor(context).saveMeasuresForFile(file);
+
+		final ArgumentCaptor<Measure> measures = ArgumentCaptor.forClass(Measure.class);
+		verify(context, atLeastOnce()).saveMeasure(any(Resource.class), measures.capture());
+		assertEquals("1=1;2=0;4=1;6=0;8=0;10=0;12=1;20=0;30=0", distribution(measures.getAllValues()));
+	}
+
+	@Test
+	public void saveMeasuresDoesNotSearchTheIndex() {
+		final SensorContext context = mock(SensorContext.class);
+		final SquidIndex index = spy(new SquidIndex());
+		final SourceProject project = new SourceProject("Test");
+		index.index(project);
+		final Collection<SourceCode> files = new ArrayList<SourceCode>();
+		for (int i = 0; i < FILES; i++) {
+			final SourceFile file = givenAFile(project, "/dummy/File" + i + ".m");
+			index.index(file);
+			for (int j = 0; j < FUNCTIONS_PER_FILE; j++) {
+				index.index(givenAFunction(file, "function" + j, j + 1));
+			}
+			files.add(file);
+		}
+
+		testedPersistor(context).saveMeasures(files);
+
+		verify(index, never()).search(Matchers.<Query> anyVararg());
+		verify(index, never()).search(anyString());
+		final ArgumentCaptor<Measure> measures = ArgumentCaptor.forClass(Measure.class);
+		verify(context, atLeastOnce()).saveMeasure(any(Resource.class), measures.capture());
+		int distributions = 0;
+		for (final Measure measure : measures.getAllValues()) {
+			if (CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION.equals(measure.getMetric())) {
+				assertEquals("1=1;2=2;4=0;6=0;8=0;10=0;12=0;20=0;30=0", measure.getData());
+				distributions++;
+			}
+		}
+		assertEquals(FILES, distributions);
+	}
+
+	private static SquidMeasuresPersistor testedPersistor(final SensorContext context) {
+		final ProjectBuilder projectBuilder = new ProjectBuilder();
+		projectBuilder.containingSourceDirectory("/dummy");
+		return new SquidMeasuresPersistor(projectBuilder.project(), context, new ArrayList<AnnotationCheckFactory>());
+	}
+
+	private static String distribution(final List<Measure> measures) {
+		for (final Measure measure : measures) {
+			if (CoreMetrics.FUNCTION_COMPLEXITY_DISTRIBUTION.equals(measure.getMetric())) {
+				return measure.getData();
+			}
+		}
+		return null;
+	}
+
+	private static SourceFile givenAFile(final SourceProject project, final String key) {
+		final SourceFile file = new SourceFile(key);
+		project.addChild(file);
+		return file;
+	}
+
+	private static SourceFunction givenAFunction(final SourceCode parent, final String name, final int complexity) {
+		final SourceFunction function = new SourceFunction(parent.getKey() + "#" + name);
+		function.setMeasure(ObjectiveCMetric.COMPLEXITY, complexity);
+		parent.addChild(function);
+		return function;
+	}
+
+}
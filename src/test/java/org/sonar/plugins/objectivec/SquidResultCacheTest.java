@@ -0,0 +1,142 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.profiles.RulesProfile;
+import org.sonar.api.rules.RulePriority;
+import org.sonar.objectivec.ObjectiveCConfiguration;
+import org.sonar.objectivec.checks.CheckList;
+
+public final class SquidResultCacheTest {
+	private static final double DELTA = 0.0001;
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void getReplaysTheResultsOfAnUnchangedFile() throws IOException {
+		final RulesProfile profile = givenAProfile();
+		final File source = givenASource("a.m", "[self init];");
+		final File cacheFile = new File(folder.getRoot(), "cache.bin");
+		final org.sonar.api.rules.Rule rule = profile.getActiveRule(CheckList.REPOSITORY_KEY, "check").getRule();
+		final SquidResultCache first = new SquidResultCache(cacheFile, "fingerprint", profile);
+		first.load();
+		assertNull(first.get(source));
+		first.put(new SquidFileMeasures(source.getPath(), new double[] { 1, 2, 3 }, new double[] { 4, 5 },
+				Arrays.asList(new SquidFileMeasures.Message(rule, 7, "message"), new SquidFileMeasures.Message(rule, null, "file"))));
+		first.save();
+
+		final SquidResultCache second = new SquidResultCache(cacheFile, "fingerprint", profile);
+		second.load();
+		final SquidFileMeasures measures = second.get(source);
+
+		assertNotNull(measures);
+		assertArrayEquals(new double[] { 1, 2, 3 }, measures.getMeasures(), DELTA);
+		assertArrayEquals(new double[] { 4, 5 }, measures.getFunctionComplexities(), DELTA);
+		assertEquals(2, measures.getMessages().size());
+		assertEquals(rule, measures.getMessages().get(0).getRule());
+		assertEquals(Integer.valueOf(7), measures.getMessages().get(0).getLine());
+		assertEquals("message", measures.getMessages().get(0).getText());
+		assertNull(measures.getMessages().get(1).getLine());
+		assertEquals(1, second.getHits());
+		assertEquals(0, second.getMisses());
+	}
+
+	@Test
+	public void getMissesWhenTheFileChanged() throws IOException {
+		final File source = givenASource("a.m", "[self init];");
+		final File cacheFile = givenACacheWith(source, "fingerprint");
+		FileUtils.writeStringToFile(source, "[self dealloc];");
+
+		final SquidResultCache cache = new SquidResultCache(cacheFile, "fingerprint", givenAProfile());
+		cache.load();
+
+		assertNull(cache.get(source));
+		assertEquals(1, cache.getMisses());
+	}
+
+	@Test
+	public void loadIgnoresTheCacheOfAnotherFingerprint() throws IOException {
+		final File source = givenASource("a.m", "[self init];");
+		final File cacheFile = givenACacheWith(source, "fingerprint");
+
+		final SquidResultCache cache = new SquidResultCache(cacheFile, "other", givenAProfile());
+		cache.load();
+
+		assertNull(cache.get(source));
+	}
+
+	@Test
+	public void fingerprintDependsOnTheActiveRulesAndTheConfiguration() {
+		final ObjectiveCConfiguration conf = new ObjectiveCConfiguration();
+		final String fingerprint = SquidResultCache.fingerprint("1.0", givenAProfile(), conf);
+
+		assertEquals(fingerprint, SquidResultCache.fingerprint("1.0", givenAProfile(), conf));
+		assertFalse(fingerprint.equals(SquidResultCache.fingerprint("1.1", givenAProfile(), conf)));
+		assertFalse(fingerprint.equals(SquidResultCache.fingerprint("1.0", RulesProfile.create(), conf)));
+		conf.setIgnoreHeaderComments(true);
+		assertFalse(fingerprint.equals(SquidResultCache.fingerprint("1.0", givenAProfile(), conf)));
+	}
+
+	@Test
+	public void buildVersionIsStampedByTheBuild() {
+		final String version = SquidResultCache.buildVersion();
+
+		assertNotNull(version);
+		assertFalse(version.contains("${"));
+	}
+
+	private File givenACacheWith(final File source, final String fingerprint) throws IOException {
+		final File cacheFile = new File(folder.getRoot(), "cache.bin");
+		final SquidResultCache cache = new SquidResultCache(cacheFile, fingerprint, givenAProfile());
+		cache.put(new SquidFileMeasures(source.getPath(), new double[] { 1 }, new double[0],
+				Collections.<SquidFileMeasures.Message> emptyList()));
+		cache.save();
+		return cacheFile;
+	}
+
+	private File givenASource(final String name, final String content) throws IOException {
+		final File file = folder.newFile(name);
+		FileUtils.writeStringToFile(file, content);
+		return file;
+	}
+
+	private static RulesProfile givenAProfile() {
+		final RulesProfile profile = RulesProfile.create();
+		profile.activateRule(org.sonar.api.rules.Rule.create(CheckList.REPOSITORY_KEY, "check"), RulePriority.MAJOR);
+		return profile;
+	}
+
+}
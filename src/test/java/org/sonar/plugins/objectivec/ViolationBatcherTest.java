@@ -0,0 +1,80 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import org.junit.Test;
+import org.sonar.api.batch.SensorContext;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.Violation;
+
+public final class ViolationBatcherTest {
+
+	@Test
+	public void shouldKeepViolationsUntilTheBatchIsFull() {
+		final SensorContext context = mock(SensorContext.class);
+		final ViolationBatcher testedBatcher = new ViolationBatcher(context, 3);
+
+		testedBatcher.handle(givenAViolation());
+		testedBatcher.handle(givenAViolation());
+
+		verify(context, never()).saveViolation(any(Violation.class));
+		assertEquals(0, testedBatcher.getSaved());
+	}
+
+	@Test
+	public void shouldSaveTheBatchOnceFull() {
+		final SensorContext context = mock(SensorContext.class);
+		final ViolationBatcher testedBatcher = new ViolationBatcher(context, 2);
+
+		testedBatcher.handle(givenAViolation());
+		testedBatcher.handle(givenAViolation());
+		testedBatcher.handle(givenAViolation());
+
+		verify(context, times(2)).saveViolation(any(Violation.class));
+		assertEquals(2, testedBatcher.getSaved());
+	}
+
+	@Test
+	public void flushShouldSaveTheRemainingViolations() {
+		final SensorContext context = mock(SensorContext.class);
+		final ViolationBatcher testedBatcher = new ViolationBatcher(context, 2);
+
+		testedBatcher.handle(givenAViolation());
+		testedBatcher.handle(givenAViolation());
+		testedBatcher.handle(givenAViolation());
+		testedBatcher.flush();
+		testedBatcher.flush();
+
+		verify(context, times(3)).saveViolation(any(Violation.class));
+		assertEquals(3, testedBatcher.getSaved());
+	}
+
+	private Violation givenAViolation() {
+		return Violation.create(Rule.create(), null);
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.sonar.api.rules.Rule;
+import org.sonar.api.rules.Violation;
+
+public final class ViolationKeySetTest {
+
+	@Test
+	public void addShouldKeepTheFirstOccurrenceOfAViolation() {
+		final ViolationKeySet testedSet = new ViolationKeySet();
+
+		assertTrue(testedSet.add(givenAViolation("dummy/test", 99, "RULE")));
+	}
+
+	@Test
+	public void addShouldDropAViolationAlreadyRead() {
+		final ViolationKeySet testedSet = new ViolationKeySet();
+
+		testedSet.add(givenAViolation("dummy/test", 99, "RULE"));
+
+		assertFalse(testedSet.add(givenAViolation("dummy/test", 99, "RULE")));
+	}
+
+	@Test
+	public void addShouldKeepAsManyViolationsWhateverTheOrderOfTheReports() {
+		final List<Violation> first = Arrays.asList(givenAViolation("dummy/test", 99, "RULE"),
+				givenAViolation("dummy/test", 99, "RULE"), givenAViolation("dummy/test", 1, "RULE"));
+		final List<Violation> second = Arrays.asList(givenAViolation("dummy/test", 99, "RULE"),
+				givenAViolation("dummy/other", 99, "RULE"));
+
+		assertEquals(kept(first, second), kept(second, first));
+		assertEquals(3, kept(first, second));
+	}
+
+	@Test
+	public void addShouldKeepViolationsDifferingByFileLineOrRule() {
+		final ViolationKeySet testedSet = new ViolationKeySet();
+
+		testedSet.add(givenAViolation("dummy/test", 99, "RULE"));
+
+		assertTrue(testedSet.add(givenAViolation("dummy/other", 99, "RULE")));
+		assertTrue(testedSet.add(givenAViolation("dummy/test", 98, "RULE")));
+		assertTrue(testedSet.add(givenAViolation("dummy/test", 99, "OTHER")));
+	}
+
+	@Test
+	public void addShouldRememberKeysBeyondTheInitialCapacity() {
+		final ViolationKeySet testedSet = new ViolationKeySet();
+
+		for (int line = 0; line < 5000; line++) {
+			testedSet.add(givenAViolation("dummy/test", line, "RULE"));
+		}
+
+		assertEquals(5000, testedSet.size());
+		for (int line = 0; line < 5000; line++) {
+			assertFalse(testedSet.add(givenAViolation("dummy/test", line, "RULE")));
+		}
+	}
+
+	private static int kept(final List<Violation>... reports) {
+		final ViolationKeySet testedSet = new ViolationKeySet();
+		int kept = 0;
+		for (final List<Violation> report : reports) {
+			for (final Violation violation : report) {
+				if (testedSet.add(violation)) {
+					kept++;
+				}
+			}
+		}
+		return kept;
+	}
+
+	private static Violation givenAViolation(final String file, final int line, final String ruleKey) {
+		final Violation violation = Violation.create(Rule.create(OCLintRuleRepository.REPOSITORY_KEY, ruleKey),
+				new org.sonar.api.resources.File(file));
+		violation.setLineId(line);
+		return violation;
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Sonar Objective-C Plugin
+ * Copyright (C) 2012 François Helg, Cyril Picat and OCTO Technology
+ * dev@sonar.codehaus.org
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this program; if not, write to the Free Software
+ * Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02
+ */
+package org.sonar.plugins.objectivec.cpd;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+import net.sourceforge.pmd.cpd.SourceCode;
+import net.sourceforge.pmd.cpd.TokenEntry;
+import net.sourceforge.pmd.cpd.Tokens;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.objectivec.ObjectiveCAstScanner;
+import org.sonar.objectivec.ObjectiveCConfiguration;
+import org.sonar.objectivec.lexer.TokenCache;
+import org.sonar.objectivec.lexer.TokenCacheVisitor;
+
+import com.sonar.sslr.api.Token;
+
+public class ObjectiveCTokenizerTest {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void should_keep_identifiers_and_literals_by_default() throws IOException {
+        ObjectiveCTokenizer tokenizer = new ObjectiveCTokenizer(UTF_8);
+
+        assertThat(images(tokenizer, "int count = 42;"), not(is(images(tokenizer, "int total = 7;"))));
+    }
+
+    @Test
+    public void should_match_renamed_code_when_normalizing() throws IOException {
+        ObjectiveCTokenizer tokenizer = normalizingTokenizer();
+
+        assertThat(images(tokenizer, "int count = 42; NSString *s = @\"a\";"),
+                is(images(tokenizer, "int total = 7; NSString *t = @\"b\";")));
+    }
+
+    @Test
+    public void should_keep_keywords_and_punctuators_when_normalizing() throws IOException {
+        ObjectiveCTokenizer tokenizer = normalizingTokenizer();
+
+        assertThat(images(tokenizer, "int count = 42;"), not(is(images(tokenizer, "long count += 42;"))));
+    }
+
+    @Test
+    public void should_share_token_images_between_files() throws IOException {
+        ObjectiveCTokenizer tokenizer = new ObjectiveCTokenizer(UTF_8);
+
+        assertThat(images(tokenizer, "count").get(0), sameInstance(images(tokenizer, "count").get(0)));
+    }
+
+    @Test
+    public void should_take_the_tokens_of_the_squid_scan_from_the_cache() throws IOException {
+        File file = write("int main() { return 42; }");
+        final List<List<Token>> taken = new ArrayList<List<Token>>();
+        TokenCache cache = new TokenCache(1024 * 1024) {
+            @Override
+            public List<Token> take(File source) {
+                List<Token> tokens = super.take(source);
+                taken.add(tokens);
+                return tokens;
+            }
+        };
+        ObjectiveCConfiguration conf = new ObjectiveCConfiguration(UTF_8);
+        ObjectiveCAstScanner.create(conf, new TokenCacheVisitor(cache)).scanFile(file);
+        assertThat(cache.size(), is(1));
+
+        List<String> images = images(new ObjectiveCTokenizer(conf, cache), file);
+
+        assertThat(taken.size(), is(1));
+        assertThat(taken.get(0), notNullValue());
+        List<String> cachedImages = new ArrayList<String>();
+        for (Token token : taken.get(0)) {
+            cachedImages.add(token.getValue());
+        }
+        cachedImages.add(TokenEntry.getEOF().getValue());
+        assertThat(images, is(cachedImages));
+        assertThat(cache.size(), is(0));
+    }
+
+    private ObjectiveCTokenizer normalizingTokenizer() {
+        return new ObjectiveCTokenizer(new ObjectiveCConfiguration(UTF_8), new TokenCache(0), true,
+                new TokenImageTable());
+    }
+
+    private List<String> images(ObjectiveCTokenizer tokenizer, String source) throws IOException {
+        return images(tokenizer, write(source));
+    }
+
+    private List<String> images(ObjectiveCTokenizer tokenizer, File file) throws IOException {
+        Tokens tokens = new Tokens();
+        tokenizer.tokenize(new SourceCode(new SourceCode.FileCodeLoader(file, UTF_8.name())), tokens);
+        List<String> images = new ArrayList<String>();
+        for (TokenEntry token : tokens.getTokens()) {
+            images.add(token.getValue());
+        }
+        return images;
+    }
+
+    private File write(String source) throws IOException {
+        File file = folder.newFile();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), UTF_8);
+        try {
+            writer.write(source);
+        } finally {
+            writer.close();
+        }
+        return file;
+    }
+
+}
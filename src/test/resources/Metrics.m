@@ -0,0 +1,46 @@
+//
+//  Metrics.m
+//
+
+#import "Metrics.h"
+
+typedef NS_ENUM(NSInteger, MetricsKind) {
+    MetricsKindOne = 1,
+    MetricsKindOther
+};
+
+static int square(int x) {
+    return x * x;
+}
+
+@implementation Metrics
+
+@synthesize name = _name;
+
+- (id)initWithName:(NSString *)name {
+    if ((self = [super init])) {
+        _name = [name copy];
+    }
+    return self;
+}
+
+- (BOOL)isValid {
+    return _name != nil && [_name length] > 0;
+}
+
+- (void)visit:(NSArray *)items {
+    for (id item in items) {
+        switch ([item kind]) {
+            case 1:
+                [self visitOne:item];
+                break;
+            default:
+                break;
+        }
+    }
+    [items enumerateObjectsUsingBlock:^(id obj, NSUInteger idx, BOOL *stop) {
+        *stop = idx > 2 ? YES : NO;
+    }];
+}
+
+@end